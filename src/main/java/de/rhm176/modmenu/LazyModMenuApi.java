@@ -0,0 +1,59 @@
+package de.rhm176.modmenu;
+
+import de.rhm176.modmenu.api.ModConfigPanelFactory;
+import de.rhm176.modmenu.api.ModMenuApi;
+import de.rhm176.modmenu.api.update.UpdateChecker;
+import de.rhm176.modmenu.util.LogUtil;
+import net.fabricmc.loader.api.entrypoint.EntrypointContainer;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A handle to a {@link ModMenuApi} entrypoint that only instantiates it once one of its methods is called, so
+ * integrating mods' API classes aren't loaded at startup.
+ * <p>
+ * If the entrypoint can't be instantiated, the error is logged once and the mod is treated as if it had no
+ * config screen and no update checker.
+ */
+@ApiStatus.Internal
+final class LazyModMenuApi implements ModMenuApi {
+    private final EntrypointContainer<ModMenuApi> container;
+
+    private ModMenuApi instance;
+    private boolean failed = false;
+
+    LazyModMenuApi(EntrypointContainer<ModMenuApi> container) {
+        this.container = container;
+    }
+
+    String getModId() {
+        return container.getProvider().getMetadata().getId();
+    }
+
+    private synchronized ModMenuApi getInstance() {
+        if (instance == null && !failed) {
+            long start = System.nanoTime();
+            try {
+                instance = container.getEntrypoint();
+                LogUtil.log("Created the Mod Menu entrypoint of '%s' in %.2f ms."
+                        .formatted(getModId(), (System.nanoTime() - start) / 1_000_000.0));
+            } catch (Throwable t) {
+                failed = true;
+                LogUtil.err("Could not create the Mod Menu entrypoint of mod: " + getModId(), t);
+            }
+        }
+
+        return instance;
+    }
+
+    @Override
+    public ModConfigPanelFactory getModConfigPanelFactory() {
+        ModMenuApi api = getInstance();
+        return api != null ? api.getModConfigPanelFactory() : null;
+    }
+
+    @Override
+    public UpdateChecker getUpdateChecker() {
+        ModMenuApi api = getInstance();
+        return api != null ? api.getUpdateChecker() : null;
+    }
+}
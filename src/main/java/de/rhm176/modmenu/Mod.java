@@ -6,10 +6,11 @@ import de.rhm176.modmenu.api.ModMenuApi;
 import de.rhm176.modmenu.api.update.GithubUpdateChecker;
 import de.rhm176.modmenu.api.update.UpdateChecker;
 import de.rhm176.modmenu.api.update.UpdateInfo;
+import de.rhm176.modmenu.config.SortingOrder;
 import de.rhm176.modmenu.duck.SecondPanelUiDuck;
 import de.rhm176.modmenu.util.FabricLoaderUpdateChecker;
 import de.rhm176.modmenu.util.LogUtil;
-import java.nio.ByteBuffer;
+import de.rhm176.modmenu.util.ModFacetIndex;
 import java.util.*;
 import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.api.metadata.CustomValue;
@@ -20,6 +21,13 @@ import org.jetbrains.annotations.ApiStatus;
 
 @ApiStatus.Internal
 public final class Mod {
+    /**
+     * A translation key every language file sets to the name of its language.
+     */
+    public static final String LANGUAGE_KEY = "modmenu.language";
+
+    private static final long SLOW_CAPABILITY_NANOS = 10_000_000;
+
     private final ModContainer container;
     private final ModMetadata metadata;
 
@@ -28,7 +36,21 @@ public final class Mod {
 
     private final Optional<String> parent;
 
-    private UpdateInfo updateInfo;
+    private volatile UpdateInfo updateInfo;
+    private volatile boolean updateInfoStale;
+    private int index = -1;
+
+    /**
+     * Bumped by {@link #invalidateAllViews()}, views built for an older generation are rebuilt on their next use.
+     */
+    private static volatile int viewGeneration;
+    /**
+     * The value of {@link #LANGUAGE_KEY} the current views were built for.
+     */
+    private static String viewLanguage;
+
+    private volatile View view;
+    private volatile Capabilities capabilities;
 
     public Mod(ModContainer modContainer) {
         this.container = modContainer;
@@ -90,25 +112,126 @@ public final class Mod {
         return updateInfo;
     }
 
+    /**
+     * @return Whether the update info was remembered from an earlier launch and hasn't been confirmed by an update
+     * check yet.
+     */
+    public boolean isUpdateInfoStale() {
+        return updateInfoStale;
+    }
+
     public void setUpdateInfo(UpdateInfo updateInfo) {
+        setUpdateInfo(updateInfo, false);
+    }
+
+    /**
+     * Shows an update remembered from an earlier launch until the next update check of this mod finishes.
+     */
+    public void setStaleUpdateInfo(UpdateInfo updateInfo) {
+        setUpdateInfo(updateInfo, true);
+    }
+
+    private void setUpdateInfo(UpdateInfo updateInfo, boolean stale) {
         this.updateInfo = updateInfo;
+        this.updateInfoStale = stale && updateInfo != null;
+        invalidateView();
+        ModFacetIndex.onUpdateInfoChanged(this);
+        SortingOrder.invalidateCache();
     }
 
+    /**
+     * @return The update checker of this mod, resolved once and then reused.
+     */
     public UpdateChecker getUpdateChecker() {
+        return getCapabilities().updateChecker();
+    }
+
+    /**
+     * @return The config screen factory of this mod, resolved once and then reused.
+     */
+    public ModConfigPanelFactory getConfigFactory() {
+        return getCapabilities().configFactory();
+    }
+
+    /**
+     * @return How long creating the mod's {@link ModMenuApi} and asking it for its config screen and update checker
+     * took, in nanoseconds, or -1 if that hasn't happened yet. Doesn't resolve anything itself.
+     */
+    public long getCapabilityResolveNanos() {
+        Capabilities capabilities = this.capabilities;
+        return capabilities != null ? capabilities.resolveNanos() : -1;
+    }
+
+    private Capabilities getCapabilities() {
+        // the API entrypoints are only complete once the registry has been built
+        if (index < 0) return resolveCapabilities();
+
+        Capabilities capabilities = this.capabilities;
+        if (capabilities == null) {
+            synchronized (this) {
+                if ((capabilities = this.capabilities) == null) {
+                    this.capabilities = capabilities = resolveCapabilities();
+                }
+            }
+        }
+
+        return capabilities;
+    }
+
+    private Capabilities resolveCapabilities() {
+        long start = System.nanoTime();
+
+        ModConfigPanelFactory configFactory = null;
+        UpdateChecker updateChecker = null;
+        try {
+            configFactory = createConfigFactory();
+            updateChecker = createUpdateChecker();
+        } catch (Throwable t) {
+            LogUtil.err("Could not get the config screen or update checker of mod: " + getId(), t);
+        }
+
+        long nanos = System.nanoTime() - start;
+        if (nanos > SLOW_CAPABILITY_NANOS) {
+            LogUtil.log("Resolving the Mod Menu API of '%s' took %.2f ms.".formatted(getId(), nanos / 1_000_000.0));
+        }
+
+        return new Capabilities(configFactory, updateChecker, nanos);
+    }
+
+    /**
+     * @return Whether {@link #getConfigFactory()} may return a factory. Unlike that method, this doesn't create the
+     * mod's API entrypoint.
+     */
+    public boolean mayHaveConfigScreen() {
+        return "equilinox".equals(getId()) || getApi() != null;
+    }
+
+    /**
+     * @return Whether {@link #getUpdateChecker()} may return a checker. Unlike that method, this doesn't create the
+     * mod's API entrypoint.
+     */
+    public boolean mayHaveUpdateChecker() {
+        return switch (getId()) {
+            case "fabricloader", "silkloader" -> true;
+            default -> getApi() != null;
+        };
+    }
+
+    private UpdateChecker createUpdateChecker() {
         return switch (getId()) {
             case "fabricloader" -> new FabricLoaderUpdateChecker();
             case "silkloader" ->
                 new GithubUpdateChecker("silkloader", "SilkLoader/silk-loader")
                         .releaseUrlFunction(s -> FabricLoaderUpdateChecker.UPDATE_LINK);
             default -> {
-                ModMenuApi api = ModMenu.MOD_APIS.get(getId());
+                ModMenuApi api = getApi();
                 yield api != null ? api.getUpdateChecker() : null;
             }
         };
     }
 
     @SuppressWarnings("DataFlowIssue")
-    public ModConfigPanelFactory getConfigFactory() {
+    private ModConfigPanelFactory createConfigFactory() {
         if ("equilinox".equals(getId())) {
             return (gameMenu) -> {
                 OptionsPanelUi optionsPanelUi = new OptionsPanelUi(gameMenu);
@@ -117,13 +240,28 @@ public final class Mod {
                 return optionsPanelUi;
             };
         } else {
-            ModMenuApi api = ModMenu.MOD_APIS.get(getId());
+            ModMenuApi api = getApi();
             if (api == null) return null;
 
             return api.getModConfigPanelFactory();
         }
     }
 
+    private ModMenuApi getApi() {
+        return index >= 0 ? ModMenu.REGISTRY.getApi(index) : ModMenu.MOD_APIS.get(getId());
+    }
+
+    /**
+     * @return The index of this mod in {@link ModMenu#REGISTRY}, or -1 before the registry has been built.
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    void setIndex(int index) {
+        this.index = index;
+    }
+
     public Optional<String> getParent() {
         return parent;
     }
@@ -132,25 +270,106 @@ public final class Mod {
         return metadata.getId();
     }
 
+    /**
+     * Drops the cached display values of this mod, e.g. because its update info changed.
+     */
+    public void invalidateView() {
+        view = null;
+    }
+
+    /**
+     * Drops the cached display values of all mods.
+     */
+    public static void invalidateAllViews() {
+        viewGeneration++;
+    }
+
+    /**
+     * Drops the cached display values of all mods if the language changed since they were built, as identified by
+     * the translation of {@link #LANGUAGE_KEY}.
+     *
+     * @return Whether the views were dropped.
+     */
+    public static boolean invalidateViewsIfLanguageChanged() {
+        String language = I18n.translate(LANGUAGE_KEY);
+        if (language.equals(viewLanguage)) return false;
+
+        viewLanguage = language;
+        invalidateAllViews();
+        return true;
+    }
+
+    /**
+     * @return The display values of this mod, computed once per language and update state.
+     */
+    public View getView() {
+        View view = this.view;
+        if (view == null || view.generation() != viewGeneration) {
+            this.view = view = createView();
+        }
+
+        return view;
+    }
+
+    private View createView() {
+        int generation = viewGeneration;
+
+        List<ModBadgeType> allBadges = new ArrayList<>(badges);
+        if (getUpdateInfo() != null) {
+            allBadges.add(ModBadgeType.UPDATE);
+        }
+
+        SortedMap<String, Set<String>> credits = new TreeMap<>();
+        for (var contributor : computeCredits().entrySet()) {
+            credits.put(contributor.getKey(), Collections.unmodifiableSet(contributor.getValue()));
+        }
+
+        return new View(
+                generation,
+                computeName(),
+                computeDescription(),
+                computeVersion(),
+                computeAuthors(),
+                Collections.unmodifiableSortedMap(credits),
+                Collections.unmodifiableSet(new LinkedHashSet<>(metadata.getLicense())),
+                List.copyOf(allBadges));
+    }
+
     public String getName() {
+        return getView().name();
+    }
+
+    public String getDescription() {
+        return getView().description();
+    }
+
+    public String getVersion() {
+        return getView().version();
+    }
+
+    public List<String> getAuthors() {
+        return getView().authors();
+    }
+
+    private String computeName() {
         return Objects.equals(getId(), "java")
                 ? "Java"
                 : I18n.translateWithFallback("modmenu.nameTranslation." + getId(), metadata.getName());
     }
 
-    public String getDescription() {
+    private String computeDescription() {
         return Objects.equals(getId(), "java")
                 ? "The Java runtime environment.\nRunning: " + metadata.getName()
                 : I18n.translateWithFallback("modmenu.descriptionTranslation." + getId(), metadata.getDescription());
     }
 
-    public String getVersion() {
+    private String computeVersion() {
         return Objects.equals(getId(), "java")
                 ? System.getProperty("java.version")
                 : metadata.getVersion().getFriendlyString();
     }
 
-    public List<String> getAuthors() {
+    private List<String> computeAuthors() {
         return switch (getId()) {
             case "equilinox" -> List.of("ThinMatrix", "Jamal Green Music", "Dannek Studio");
             case "java" -> List.of(System.getProperty("java.vendor"));
@@ -168,9 +387,13 @@ public final class Mod {
     }
 
     public SortedMap<String, Set<String>> getCredits() {
+        return getView().credits();
+    }
+
+    private SortedMap<String, Set<String>> computeCredits() {
         SortedMap<String, Set<String>> credits = new TreeMap<>();
 
-        var authors = this.getAuthors();
+        var authors = this.computeAuthors();
         var contributors = this.getContributors();
         for (var author : authors) {
             contributors.put(author, List.of("Author"));
@@ -187,7 +410,7 @@ public final class Mod {
     }
 
     public Set<String> getLicenses() {
-        return new HashSet<>(metadata.getLicense());
+        return getView().licenses();
     }
 
     public String getWebsite() {
@@ -207,29 +430,37 @@ public final class Mod {
     }
 
     public List<ModBadgeType> getBadges() {
-        List<ModBadgeType> newList = new ArrayList<>(badges);
-        if (getUpdateInfo() != null) {
-            newList.add(ModBadgeType.UPDATE);
-        }
-
-        return newList;
+        return getView().badges();
     }
 
     public ModContainer getContainer() {
         return container;
     }
 
-    public ByteBuffer getIconBuffer(int size) {
+    public IconSource getIconSource(int size) {
         return switch (getId()) {
             case "equilinox" ->
-                ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/equilinox_icon.png", size);
-            case "java" ->
-                ModMenuUtil.loadPng(ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/java_icon.png", size);
-            default ->
-                metadata.getIconPath(size)
-                        .map(s -> ModMenuUtil.loadPng(container, s, size))
-                        .orElse(null);
+                new IconSource(ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/equilinox_icon.png");
+            case "java" -> new IconSource(ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/java_icon.png");
+            default -> metadata.getIconPath(size).map(s -> new IconSource(container, s)).orElse(null);
         };
     }
+
+    public record IconSource(ModContainer container, String file) {}
+
+    private record Capabilities(
+            ModConfigPanelFactory configFactory, UpdateChecker updateChecker, long resolveNanos) {}
+
+    /**
+     * The display values of a mod. All collections are immutable.
+     */
+    public record View(
+            int generation,
+            String name,
+            String description,
+            String version,
+            List<String> authors,
+            SortedMap<String, Set<String>> credits,
+            Set<String> licenses,
+            List<ModBadgeType> badges) {}
 }
@@ -0,0 +1,90 @@
+package de.rhm176.modmenu;
+
+import java.util.*;
+import net.fabricmc.loader.api.ModContainer;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Builds a {@link Mod} for every mod container and collects the parent/child relationships between them.
+ * <p>
+ * Building a mod translates its name and description and parses its custom values, neither of which is known to
+ * be thread-safe, so this always runs on the render thread. It can either build every mod at once, or a few at a
+ * time through {@link #step(long)}, so a deferred initialization never holds up a frame for long. The results are
+ * only collected here. Freezing them into a {@link ModRegistry} happens once afterwards.
+ */
+@ApiStatus.Internal
+final class ModIngestion {
+    private final List<ModContainer> containers;
+    private final Map<String, Mod> mods = new HashMap<>();
+    private final Map<String, List<String>> children = new HashMap<>();
+    private int next;
+    private int steps;
+    private long nanos;
+
+    ModIngestion(List<ModContainer> containers) {
+        this.containers = containers;
+    }
+
+    static ModIngestion run(List<ModContainer> containers) {
+        ModIngestion ingestion = new ModIngestion(containers);
+        ingestion.step(Long.MAX_VALUE);
+
+        return ingestion;
+    }
+
+    /**
+     * Builds mods until all of them are done or {@code budgetNanos} have passed. At least one mod is built per call.
+     *
+     * @return Whether every mod has been built.
+     */
+    boolean step(long budgetNanos) {
+        long start = System.nanoTime();
+        while (!isDone()) {
+            ingest(containers.get(next++));
+            if (System.nanoTime() - start >= budgetNanos) break;
+        }
+
+        nanos += System.nanoTime() - start;
+        steps++;
+
+        return isDone();
+    }
+
+    boolean isDone() {
+        return next >= containers.size();
+    }
+
+    private void ingest(ModContainer modContainer) {
+        Mod mod = new Mod(modContainer);
+        mods.put(mod.getId(), mod);
+
+        for (ModContainer containedMod : modContainer.getContainedMods()) {
+            addChild(mod.getId(), containedMod.getMetadata().getId());
+        }
+
+        mod.getParent().ifPresent(parentId -> addChild(parentId, mod.getId()));
+    }
+
+    private void addChild(String parentId, String childId) {
+        children.computeIfAbsent(parentId, k -> new ArrayList<>()).add(childId);
+    }
+
+    Map<String, Mod> getMods() {
+        return mods;
+    }
+
+    Map<String, List<String>> getChildren() {
+        return children;
+    }
+
+    /**
+     * @return The time spent building mods, summed over all steps.
+     */
+    double getMillis() {
+        return nanos / 1_000_000.0;
+    }
+
+    int getSteps() {
+        return steps;
+    }
+}
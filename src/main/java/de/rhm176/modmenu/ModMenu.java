@@ -3,11 +3,14 @@ package de.rhm176.modmenu;
 import de.rhm176.modmenu.api.ModMenuApi;
 import de.rhm176.modmenu.api.update.UpdateCheckException;
 import de.rhm176.modmenu.api.update.UpdateChecker;
+import de.rhm176.modmenu.api.update.UpdateInfo;
 import de.rhm176.modmenu.config.Config;
 import de.rhm176.modmenu.util.LogUtil;
+import de.rhm176.modmenu.util.UpdateInfoStore;
 import java.util.*;
 import java.util.concurrent.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.ModContainer;
@@ -18,62 +21,197 @@ import org.jetbrains.annotations.ApiStatus;
 public class ModMenu implements ModInitializer {
     public static final String MOD_ID = "modmenu";
     public static ModContainer MOD_MENU_CONTAINER;
-    public static final Map<String, Mod> MODS = new ConcurrentHashMap<>();
-    public static final Map<String, List<String>> MOD_CHILDREN = new ConcurrentHashMap<>();
-    public static final Map<String, ModMenuApi> MOD_APIS = new ConcurrentHashMap<>();
+    /**
+     * Read-only views over {@link #REGISTRY}. They are empty until the initialization is done.
+     */
+    public static final Map<String, Mod> MODS = new RegistryMap<>(ModRegistry::asModMap);
+
+    public static final Map<String, List<String>> MOD_CHILDREN = new RegistryMap<>(ModRegistry::asChildrenMap);
+    public static final Map<String, ModMenuApi> MOD_APIS = new RegistryMap<>(ModRegistry::asApiMap);
+    public static volatile ModRegistry REGISTRY;
+
+    /**
+     * How much of a frame a deferred initialization may take while the game idles on its main menu, and while the
+     * menu is open and waiting for it.
+     */
+    private static final long IDLE_SLICE_NANOS = 2_000_000;
+
+    private static final long WAITING_SLICE_NANOS = 20_000_000;
+
+    private static List<ModContainer> containers;
+    private static ModIngestion ingestion;
+    private static boolean initializationFailed;
 
     @Override
     public void onInitialize() {
-        FabricLoader.getInstance().getAllMods().forEach(modContainer -> {
-            Mod mod = new Mod(modContainer);
-            if (MOD_ID.equals(mod.getId())) {
+        long start = System.nanoTime();
+
+        containers = new ArrayList<>(FabricLoader.getInstance().getAllMods());
+        for (ModContainer modContainer : containers) {
+            // needed for logging while the mods are built
+            if (MOD_ID.equals(modContainer.getMetadata().getId())) {
                 MOD_MENU_CONTAINER = modContainer;
             }
-            MODS.put(mod.getId(), mod);
+        }
 
-            for (ModContainer containedMod : modContainer.getContainedMods()) {
-                MOD_CHILDREN
-                        .computeIfAbsent(mod.getId(), k -> new ArrayList<>())
-                        .add(containedMod.getMetadata().getId());
-            }
+        if (Config.instance().deferredInitialization) {
+            LogUtil.log("Deferred loading of %d mods, startup took %.2f ms."
+                    .formatted(containers.size(), (System.nanoTime() - start) / 1_000_000.0));
+        } else {
+            initialize();
+            LogUtil.log("Startup took %.2f ms.".formatted((System.nanoTime() - start) / 1_000_000.0));
+        }
+    }
 
-            mod.getParent().ifPresent(parentId -> MOD_CHILDREN
-                    .computeIfAbsent(parentId, k -> new ArrayList<>())
-                    .add(mod.getId()));
-        });
+    /**
+     * Builds part of the mod list if {@link Config#deferredInitialization} is enabled and it isn't done yet. Called
+     * on every frame while the game's main menu is shown, and with {@code waiting} set while the menu is open and
+     * waiting for the mod list, which allows a larger slice of each frame to be spent on it.
+     * <p>
+     * Mods are built on the render thread for the same reason they aren't built in parallel, see
+     * {@link ModIngestion}. If loading fails, it is only tried again once {@link #requestInitialization()} is
+     * called.
+     */
+    public static void continueInitialization(boolean waiting) {
+        if (REGISTRY != null || initializationFailed) return;
 
-        MOD_CHILDREN.put("silkloader", List.of("fabricloader"));
+        try {
+            if (ingestion == null) ingestion = new ModIngestion(containers);
+            if (!ingestion.step(waiting ? WAITING_SLICE_NANOS : IDLE_SLICE_NANOS)) return;
 
-        MOD_APIS.putAll(FabricLoader.getInstance().getEntrypointContainers(MOD_ID, ModMenuApi.class).stream()
-                .collect(Collectors.toMap(
-                        entrypoint -> entrypoint.getProvider().getMetadata().getId(),
-                        EntrypointContainer::getEntrypoint)));
+            ModIngestion done = ingestion;
+            ingestion = null;
+            LogUtil.log("Loaded metadata of %d mods over %d frames in %.2f ms, which were saved at startup."
+                    .formatted(containers.size(), done.getSteps(), done.getMillis()));
+            freeze(done);
+        } catch (Throwable t) {
+            ingestion = null;
+            initializationFailed = true;
+            LogUtil.err("Could not load the mod list, it will be loaded again when the menu is opened:", t);
+        }
+    }
+
+    /**
+     * Called when the menu is opened before the mod list is loaded. Retries loading it if that failed before.
+     */
+    public static void requestInitialization() {
+        initializationFailed = false;
+    }
+
+    private static void initialize() {
+        ModIngestion ingestion = ModIngestion.run(containers);
+        LogUtil.log("Loaded metadata of %d mods in %.2f ms.".formatted(containers.size(), ingestion.getMillis()));
+        freeze(ingestion);
+    }
+
+    private static void freeze(ModIngestion ingestion) {
+        Map<String, List<String>> children = ingestion.getChildren();
+        children.put("silkloader", List.of("fabricloader"));
+
+        // the entrypoints themselves are only created once a mod's config screen or update checker is needed
+        Map<String, ModMenuApi> apis = new HashMap<>();
+        for (EntrypointContainer<ModMenuApi> entrypoint :
+                FabricLoader.getInstance().getEntrypointContainers(MOD_ID, ModMenuApi.class)) {
+            LazyModMenuApi api = new LazyModMenuApi(entrypoint);
+            if (apis.putIfAbsent(api.getModId(), api) != null) {
+                LogUtil.err("Ignoring additional Mod Menu entrypoint of mod: " + api.getModId());
+            }
+        }
+
+        ModRegistry registry = ModRegistry.build(ingestion.getMods().values(), children, apis);
+        // published last, it marks the initialization as done
+        REGISTRY = registry;
 
         if (Config.instance().enableUpdateChecking) {
             ExecutorService executor = Executors.newFixedThreadPool(
                     Math.max(2, Math.min(Runtime.getRuntime().availableProcessors(), 4)));
-            for (Mod mod : MODS.values()) {
-                UpdateChecker updateChecker = mod.getUpdateChecker();
-                if (updateChecker != null) {
-                    executor.submit(() -> {
-                        Thread.currentThread()
-                                .setName(MOD_MENU_CONTAINER.getMetadata().getName() + "/Update Checker/"
-                                        + mod.getName());
-
-                        try {
-                            updateChecker.checkForUpdates().ifPresent(((info) -> {
-                                LogUtil.log("Update available for '%s' (%s -> %s)"
-                                        .formatted(mod.getId(), mod.getVersion(), info.version()));
-                                mod.setUpdateInfo(info);
-                            }));
-                        } catch (UpdateCheckException e) {
-                            LogUtil.err("Failed to check for update for mod with id '%s'.".formatted(mod.getId()), e);
-                        }
-                    });
+            // whether a mod actually has an update checker is only known once its entrypoint has been created, which
+            // happens on the update checker threads
+            List<Mod> checkedMods = new ArrayList<>();
+            for (int i = 0; i < registry.size(); i++) {
+                Mod mod = registry.getMod(i);
+                if (mod.mayHaveUpdateChecker()) {
+                    checkedMods.add(mod);
+
+                    // shown until the check below confirms or clears it
+                    UpdateInfo storedInfo = UpdateInfoStore.get(mod);
+                    if (storedInfo != null) mod.setStaleUpdateInfo(storedInfo);
                 }
             }
 
+            UpdateInfoStore.retainAll(checkedMods.stream().map(Mod::getId).toList());
+
+            AtomicInteger remainingChecks = new AtomicInteger(checkedMods.size());
+            for (Mod mod : checkedMods) {
+                executor.submit(() -> {
+                    Thread.currentThread()
+                            .setName(MOD_MENU_CONTAINER.getMetadata().getName() + "/Update Checker/" + mod.getName());
+
+                    try {
+                        UpdateChecker updateChecker = mod.getUpdateChecker();
+                        UpdateInfo info = updateChecker != null
+                                ? updateChecker.checkForUpdates().orElse(null)
+                                : null;
+                        if (info != null) {
+                            LogUtil.log("Update available for '%s' (%s -> %s)"
+                                    .formatted(mod.getId(), mod.getVersion(), info.version()));
+                        }
+
+                        if (info != null || mod.getUpdateInfo() != null) mod.setUpdateInfo(info);
+                        UpdateInfoStore.put(mod, info);
+                    } catch (UpdateCheckException e) {
+                        LogUtil.err("Failed to check for update for mod with id '%s'.".formatted(mod.getId()), e);
+                    } finally {
+                        if (remainingChecks.decrementAndGet() == 0) UpdateInfoStore.save();
+                    }
+                });
+            }
+
             executor.shutdown();
         }
     }
+
+    /**
+     * A read-only view of one of the maps of {@link #REGISTRY}, created once the registry has been published.
+     */
+    private static final class RegistryMap<V> extends AbstractMap<String, V> {
+        private final Function<ModRegistry, Map<String, V>> view;
+        private volatile Map<String, V> delegate;
+
+        private RegistryMap(Function<ModRegistry, Map<String, V>> view) {
+            this.view = view;
+        }
+
+        private Map<String, V> delegate() {
+            Map<String, V> delegate = this.delegate;
+            if (delegate == null) {
+                ModRegistry registry = REGISTRY;
+                if (registry == null) return Map.of();
+
+                this.delegate = delegate = view.apply(registry);
+            }
+
+            return delegate;
+        }
+
+        @Override
+        public V get(Object key) {
+            return delegate().get(key);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return delegate().containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            return delegate().size();
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return delegate().entrySet();
+        }
+    }
 }
@@ -0,0 +1,47 @@
+package de.rhm176.modmenu;
+
+import de.rhm176.modmenu.util.MixinProfiler;
+import java.util.List;
+import java.util.Set;
+import org.jetbrains.annotations.ApiStatus;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfigPlugin;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+
+/**
+ * Mod Menu's mixins don't need a plugin. It is only used because it is loaded before any mixin is applied, which
+ * is the right moment to install the {@link MixinProfiler}.
+ */
+@ApiStatus.Internal
+public class ModMenuMixinPlugin implements IMixinConfigPlugin {
+    @Override
+    public void onLoad(String mixinPackage) {
+        if (MixinProfiler.isEnabled()) {
+            MixinProfiler.install();
+        }
+    }
+
+    @Override
+    public String getRefMapperConfig() {
+        return null;
+    }
+
+    @Override
+    public boolean shouldApplyMixin(String targetClassName, String mixinClassName) {
+        return true;
+    }
+
+    @Override
+    public void acceptTargets(Set<String> myTargets, Set<String> otherTargets) {}
+
+    @Override
+    public List<String> getMixins() {
+        return null;
+    }
+
+    @Override
+    public void preApply(String targetClassName, ClassNode targetClass, String mixinClassName, IMixinInfo mixinInfo) {}
+
+    @Override
+    public void postApply(String targetClassName, ClassNode targetClass, String mixinClassName, IMixinInfo mixinInfo) {}
+}
@@ -2,14 +2,18 @@ package de.rhm176.modmenu;
 
 import de.matthiasmann.twl.utils.PNGDecoder;
 import de.rhm176.modmenu.mixin.TextureManagerAccessor;
+import de.rhm176.modmenu.util.DirectBufferPool;
+import de.rhm176.modmenu.util.IconCache;
+import de.rhm176.modmenu.util.IconScaler;
 import de.rhm176.modmenu.util.LogUtil;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.function.Consumer;
+import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.ModContainer;
 import net.fabricmc.loader.api.metadata.CustomValue;
 import net.fabricmc.loader.api.metadata.ModMetadata;
@@ -64,52 +68,67 @@ public class ModMenuUtil {
         return Optional.empty();
     }
 
-    public static ByteBuffer loadPng(ModContainer container, String file, int size) {
-        ByteBuffer buffer;
+    public static Path getCacheDir() {
+        return FabricLoader.getInstance().getConfigDir().resolve(ModMenu.MOD_ID).resolve("cache");
+    }
 
+    /**
+     * Loads a PNG as BGRA pixels, scaled to {@code size}x{@code size}.
+     * <p>
+     * The returned buffer may come from the {@link DirectBufferPool}, so it should be passed to
+     * {@link DirectBufferPool#release(ByteBuffer)} once its pixels have been uploaded.
+     *
+     * @param pixelPerfect Whether to scale with nearest neighbour sampling instead of box/bilinear filtering.
+     */
+    public static ByteBuffer loadPng(ModContainer container, String file, int size, boolean pixelPerfect) {
         Optional<Path> path = container.findPath(file);
         if (path.isEmpty()) {
             return null;
         }
 
-        try (InputStream in = Files.newInputStream(path.get())) {
-            PNGDecoder decoder = new PNGDecoder(in);
+        try {
+            IconCache.Source source = IconCache.source(path.get());
+            IconCache.CachedIcon cached = IconCache.read(container, file, size, pixelPerfect, source);
+            if (cached != null) {
+                return cached.pixels();
+            }
+
+            PNGDecoder decoder = new PNGDecoder(new ByteArrayInputStream(Files.readAllBytes(path.get())));
             int width = decoder.getWidth();
             int height = decoder.getHeight();
-            buffer = ByteBuffer.allocateDirect(4 * width * height);
-            decoder.decode(buffer, width * 4, PNGDecoder.Format.BGRA);
-            buffer.flip();
-
-            if ((width == size && height == size) || size == -1) {
-                return buffer;
-            } else {
-                ByteBuffer scaledBuffer = ByteBuffer.allocateDirect(4 * size * size);
-
-                for (int ty = 0; ty < size; ty++) {
-                    for (int tx = 0; tx < size; tx++) {
-                        int sx = (int) (tx * (double) width / size);
-                        int sy = (int) (ty * (double) height / size);
-
-                        sx = Math.max(0, Math.min(sx, width - 1));
-                        sy = Math.max(0, Math.min(sy, height - 1));
-
-                        int sourceIndex = (sy * width + sx) * 4;
-
-                        byte b = buffer.get(sourceIndex);
-                        byte g = buffer.get(sourceIndex + 1);
-                        byte r = buffer.get(sourceIndex + 2);
-                        byte a = buffer.get(sourceIndex + 3);
-
-                        scaledBuffer.put(b);
-                        scaledBuffer.put(g);
-                        scaledBuffer.put(r);
-                        scaledBuffer.put(a);
-                    }
-                }
+            ByteBuffer buffer = DirectBufferPool.acquire(4 * width * height);
+            try {
+                decoder.decode(buffer, width * 4, PNGDecoder.Format.BGRA);
+                buffer.flip();
+            } catch (IOException | RuntimeException e) {
+                DirectBufferPool.release(buffer);
+                throw e;
+            }
 
-                scaledBuffer.flip();
-                return scaledBuffer;
+            if (!((width == size && height == size) || size == -1)) {
+                ByteBuffer decoded = buffer;
+                buffer = DirectBufferPool.acquire(4 * size * size);
+                try {
+                    IconScaler.scale(
+                            decoded,
+                            width,
+                            height,
+                            buffer,
+                            size,
+                            size,
+                            IconScaler.Filter.choose(pixelPerfect, Math.max(width, height), size));
+                } catch (RuntimeException e) {
+                    DirectBufferPool.release(buffer);
+                    throw e;
+                } finally {
+                    DirectBufferPool.release(decoded);
+                }
+                width = size;
+                height = size;
             }
+
+            IconCache.write(container, file, size, pixelPerfect, source, buffer, width, height);
+            return buffer;
         } catch (IOException e) {
             LogUtil.log("Could not load png " + file + " for mod: "
                     + container.getMetadata().getId());
@@ -0,0 +1,326 @@
+package de.rhm176.modmenu;
+
+import de.rhm176.modmenu.api.ModMenuApi;
+import java.util.*;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * All mods and their parent/child structure, frozen once at the end of initialization.
+ * <p>
+ * Every mod gets a dense index (see {@link Mod#getIndex()}), sorted by id. Parents are stored as an {@code int}
+ * array, and the children of all mods are stored in one flat array in CSR layout: the children of mod {@code i} are {@code childIndices[childOffsets[i]]} up to (excluding)
+ * {@code childIndices[childOffsets[i + 1]]}. {@link ModMenu#MODS}, {@link ModMenu#MOD_CHILDREN} and
+ * {@link ModMenu#MOD_APIS} are read-only views over this registry.
+ * <p>
+ * Ids are looked up through a binary search over the sorted ids, and nothing here boxes indices.
+ * <p>
+ * A mod whose parent isn't installed becomes a root, as does one mod of every parent cycle.
+ */
+@ApiStatus.Internal
+public final class ModRegistry {
+    private final Mod[] mods;
+    private final ModMenuApi[] apis;
+    private final String[] ids;
+
+    private final int[] parents;
+    private final int[] childOffsets;
+    private final int[] childIndices;
+    private final int[] rootIndices;
+    private final List<String>[] childIds;
+
+    private ModRegistry(Mod[] mods, ModMenuApi[] apis, String[] ids, int[] parents) {
+        this.mods = mods;
+        this.apis = apis;
+        this.ids = ids;
+        this.parents = parents;
+
+        // counting sort of all mods by parent
+        this.childOffsets = new int[mods.length + 1];
+        int rootCount = 0;
+        for (int parent : parents) {
+            if (parent < 0) {
+                rootCount++;
+            } else {
+                childOffsets[parent + 1]++;
+            }
+        }
+        for (int i = 0; i < mods.length; i++) {
+            childOffsets[i + 1] += childOffsets[i];
+        }
+
+        this.childIndices = new int[childOffsets[mods.length]];
+        this.rootIndices = new int[rootCount];
+        int[] next = Arrays.copyOf(childOffsets, mods.length);
+        int nextRoot = 0;
+        for (int i = 0; i < mods.length; i++) {
+            if (parents[i] < 0) {
+                rootIndices[nextRoot++] = i;
+            } else {
+                childIndices[next[parents[i]]++] = i;
+            }
+        }
+
+        List<String>[] childIds = newListArray(mods.length);
+        for (int i = 0; i < mods.length; i++) {
+            if (childOffsets[i] == childOffsets[i + 1]) continue;
+
+            String[] children = new String[childOffsets[i + 1] - childOffsets[i]];
+            for (int child = 0; child < children.length; child++) {
+                children[child] = ids[childIndices[childOffsets[i] + child]];
+            }
+            childIds[i] = List.of(children);
+        }
+        this.childIds = childIds;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static List<String>[] newListArray(int length) {
+        return new List[length];
+    }
+
+    /**
+     * Freezes the given mods into a registry and assigns their indices. If a mod is listed as the child of several
+     * parents, the last one wins.
+     */
+    public static ModRegistry build(
+            Collection<Mod> allMods, Map<String, List<String>> modChildren, Map<String, ModMenuApi> modApis) {
+        Mod[] mods = allMods.stream().sorted(Comparator.comparing(Mod::getId)).toArray(Mod[]::new);
+        String[] ids = new String[mods.length];
+        ModMenuApi[] apis = new ModMenuApi[mods.length];
+        for (int i = 0; i < mods.length; i++) {
+            mods[i].setIndex(i);
+            ids[i] = mods[i].getId();
+            apis[i] = modApis.get(ids[i]);
+        }
+
+        int[] parents = new int[mods.length];
+        Arrays.fill(parents, -1);
+        modChildren.forEach((parentId, childIds) -> {
+            int parent = indexOf(ids, parentId);
+            if (parent < 0) return;
+
+            for (String childId : childIds) {
+                int child = indexOf(ids, childId);
+                if (child >= 0 && child != parent) {
+                    parents[child] = parent;
+                }
+            }
+        });
+
+        // after more steps than there are mods, a parent chain must have ended up inside a cycle, which is broken up
+        // by making the mod it stopped at a root
+        for (int i = 0; i < mods.length; i++) {
+            int current = i;
+            for (int steps = 0; parents[current] >= 0; steps++) {
+                if (steps >= mods.length) {
+                    parents[current] = -1;
+                    break;
+                }
+                current = parents[current];
+            }
+        }
+
+        return new ModRegistry(mods, apis, ids, parents);
+    }
+
+    public int size() {
+        return mods.length;
+    }
+
+    /**
+     * @return The index of the mod, or -1 if it isn't registered.
+     */
+    public int indexOf(String id) {
+        return indexOf(ids, id);
+    }
+
+    private static int indexOf(String[] ids, String id) {
+        int index = Arrays.binarySearch(ids, id);
+        return index >= 0 ? index : -1;
+    }
+
+    public Mod getMod(int index) {
+        return mods[index];
+    }
+
+    public @Nullable ModMenuApi getApi(int index) {
+        return apis[index];
+    }
+
+    /**
+     * @return The index of the parent, or -1 for roots.
+     */
+    public int getParent(int index) {
+        return parents[index];
+    }
+
+    public int getChildCount(int index) {
+        return childOffsets[index + 1] - childOffsets[index];
+    }
+
+    /**
+     * @param siblingOrder Compares two mods by their indices.
+     * @return The indices of all mods in pre-order, i.e. every mod directly followed by its subtree, with roots and
+     * siblings ordered by {@code siblingOrder}.
+     */
+    public int[] traverse(IndexComparator siblingOrder) {
+        int[] result = new int[mods.length];
+        int position = 0;
+
+        // every mod is pushed exactly once
+        int[] stack = new int[mods.length];
+        int[] scratch = new int[mods.length];
+        int top = pushSorted(stack, 0, rootIndices, 0, rootIndices.length, scratch, siblingOrder);
+        while (top > 0) {
+            int index = stack[--top];
+            result[position++] = index;
+            top = pushSorted(
+                    stack, top, childIndices, childOffsets[index], childOffsets[index + 1], scratch, siblingOrder);
+        }
+
+        return result;
+    }
+
+    /**
+     * @return A read-only view of all mods by id.
+     */
+    public Map<String, Mod> asModMap() {
+        return new IndexedMap<>(mods);
+    }
+
+    /**
+     * @return A read-only view of the ids of the children of every mod that has any.
+     */
+    public Map<String, List<String>> asChildrenMap() {
+        return new IndexedMap<>(childIds);
+    }
+
+    /**
+     * @return A read-only view of the API entrypoints by the id of the mod providing them.
+     */
+    public Map<String, ModMenuApi> asApiMap() {
+        return new IndexedMap<>(apis);
+    }
+
+    /**
+     * Pushes {@code indices[from..to)} onto the stack so that the first one in {@code siblingOrder} ends up on top.
+     *
+     * @return The new size of the stack.
+     */
+    private static int pushSorted(
+            int[] stack, int top, int[] indices, int from, int to, int[] scratch, IndexComparator siblingOrder) {
+        int count = to - from;
+        if (count == 0) return top;
+
+        System.arraycopy(indices, from, scratch, 0, count);
+        sort(scratch, count, siblingOrder);
+        for (int i = count - 1; i >= 0; i--) {
+            stack[top++] = scratch[i];
+        }
+
+        return top;
+    }
+
+    /**
+     * Sorts {@code values[0..count)} by binary insertion. Siblings are few, and the number of comparisons, which
+     * go through sort keys, stays at {@code O(n log n)}.
+     */
+    private static void sort(int[] values, int count, IndexComparator order) {
+        for (int i = 1; i < count; i++) {
+            int value = values[i];
+
+            int low = 0;
+            int high = i;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (order.compare(value, values[middle]) < 0) {
+                    high = middle;
+                } else {
+                    low = middle + 1;
+                }
+            }
+
+            System.arraycopy(values, low, values, low + 1, i - low);
+            values[low] = value;
+        }
+    }
+
+    /**
+     * Compares two mods by their indices.
+     */
+    @FunctionalInterface
+    public interface IndexComparator {
+        int compare(int a, int b);
+    }
+
+    /**
+     * A map from mod id to {@code values[index]}. Indices whose value is {@code null} are not part of the map.
+     */
+    private final class IndexedMap<V> extends AbstractMap<String, V> {
+        private final V[] values;
+        private final int size;
+
+        private IndexedMap(V[] values) {
+            this.values = values;
+
+            int size = 0;
+            for (V value : values) {
+                if (value != null) size++;
+            }
+            this.size = size;
+        }
+
+        @Override
+        public V get(Object key) {
+            int index = key instanceof String id ? indexOf(id) : -1;
+            return index >= 0 ? values[index] : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, V>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int from) {
+                            while (from < values.length && values[from] == null) from++;
+                            return from;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < values.length;
+                        }
+
+                        @Override
+                        public Entry<String, V> next() {
+                            if (!hasNext()) throw new NoSuchElementException();
+
+                            int index = next;
+                            next = advance(index + 1);
+                            return new SimpleImmutableEntry<>(ids[index], values[index]);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return size;
+                }
+            };
+        }
+    }
+}
@@ -1,12 +1,16 @@
 package de.rhm176.modmenu.api.update;
 
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import de.rhm176.modmenu.util.HttpUtil;
 import de.rhm176.modmenu.util.LogUtil;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.BiFunction;
@@ -19,14 +23,17 @@ import org.jetbrains.annotations.Nullable;
 /**
  * An implementation of {@link UpdateChecker} that checks for updates from a GitHub repository.
  * <p>
- * This class works by fetching release information from the GitHub Releases API. It parses
- * the JSON response to find the latest release, compares it against the currently installed
- * version, and reports if a newer version is found.
+ * This class works by fetching release information from the GitHub Releases API. It reads
+ * the JSON response token by token to find the latest release, compares it against the currently
+ * installed version, and reports if a newer version is found.
  *
  * @since 1.0.0
  */
 @ApiStatus.AvailableSince("1.0.0")
 public class GithubUpdateChecker implements UpdateChecker {
+    private static final int PER_PAGE = 30;
+    private static final int MAX_PAGES = 10;
+
     private final URI apiUrl;
     private final String modId;
 
@@ -128,8 +135,10 @@ public class GithubUpdateChecker implements UpdateChecker {
     /**
      * {@inheritDoc}
      * <p>
-     * This implementation fetches and parses the JSON release data from the GitHub API
-     * to find the latest available version.
+     * This implementation only reads the tag and prerelease flag of each release, without building a tree of the
+     * response. The response body itself is read completely first, so it can be cached and shared by
+     * {@link HttpUtil}. On the {@link UpdateChannel#RELEASE} channel only the latest release is fetched, otherwise
+     * releases are fetched page by page until a page contains a release that isn't newer than the installed version.
      *
      * @throws UpdateCheckException if there is a network error, a problem parsing the JSON,
      * or any other issue during the check.
@@ -146,56 +155,127 @@ public class GithubUpdateChecker implements UpdateChecker {
         try {
             Version currentVersion = modContainer.getMetadata().getVersion();
 
-            HttpResponse<JsonElement> response = HttpUtil.httpGet(apiUrl);
-            if (response.statusCode() != 200) {
-                throw new UpdateCheckException("Failed to fetch releases, server responded with status code: %s"
-                        .formatted(response.statusCode()));
+            Release latest = UpdateChannel.getUserPreference() == UpdateChannel.RELEASE
+                    ? fetchLatestRelease(currentVersion)
+                    : fetchNewestRelease(currentVersion, true);
+            if (latest == null) {
+                return Optional.empty();
             }
 
-            if (!response.body().isJsonArray()) {
-                throw new UpdateCheckException(
-                        "Expected a JSON array from GitHub Releases API, but got something else.");
-            }
+            return Optional.of(new UpdateInfo(
+                    releaseUrlFunction.apply(latest.tagName()),
+                    latest.version().getFriendlyString(),
+                    updateChannelFunction.apply(latest.version(), latest.prerelease())));
+
+        } catch (Exception e) {
+            throw new UpdateCheckException("Unknown exception occurred during update check.", e);
+        }
+    }
 
-            String latestTagName = null;
-            Version latestVersion = null;
-            boolean latestIsPrerelease = false;
+    /**
+     * @return The latest stable release if it is newer than {@code currentVersion}, otherwise {@code null}.
+     */
+    private @Nullable Release fetchLatestRelease(Version currentVersion) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response =
+                HttpUtil.httpGet(URI.create(apiUrl + "/latest"), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() == 404) {
+            // the repository has no stable releases
+            return null;
+        }
+        if (response.statusCode() != 200) {
+            throw new UpdateCheckException("Failed to fetch the latest release, server responded with status code: %s"
+                    .formatted(response.statusCode()));
+        }
 
-            for (JsonElement releaseElement : response.body().getAsJsonArray()) {
-                if (!releaseElement.isJsonObject()) continue;
-                JsonObject releaseObj = releaseElement.getAsJsonObject();
+        Release release;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            release = readRelease(reader);
+        }
 
-                boolean isPrerelease = releaseObj.get("prerelease").getAsBoolean();
-                if (UpdateChannel.getUserPreference() == UpdateChannel.RELEASE && isPrerelease) {
-                    continue;
-                }
+        if (release == null) {
+            // e.g. a tag the parse function doesn't understand, older releases may still be newer than this version
+            LogUtil.log("Could not use the latest release of '%s', checking all releases instead.".formatted(modId));
+            return fetchNewestRelease(currentVersion, false);
+        }
+
+        return release.version().compareTo(currentVersion) > 0 ? release : null;
+    }
+
+    /**
+     * @return The newest release if it is newer than {@code currentVersion}, otherwise {@code null}.
+     */
+    private @Nullable Release fetchNewestRelease(Version currentVersion, boolean includePrereleases)
+            throws IOException, InterruptedException {
+        Release newest = null;
+        for (int page = 1; page <= MAX_PAGES; page++) {
+            HttpResponse<InputStream> response = HttpUtil.httpGet(
+                    URI.create(apiUrl + "?per_page=%d&page=%d".formatted(PER_PAGE, page)),
+                    HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200) {
+                throw new UpdateCheckException("Failed to fetch releases, server responded with status code: %s"
+                        .formatted(response.statusCode()));
+            }
 
-                String tagName = releaseObj.get("tag_name").getAsString();
-                Version parsedVersion = tagParseFunction.apply(tagName);
-                if (parsedVersion == null) {
-                    LogUtil.err("Failed to compare current version with new version (%s).".formatted(tagName));
-                    continue;
+            int count = 0;
+            boolean reachedCurrentVersion = false;
+            try (JsonReader reader = new JsonReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+                if (reader.peek() != JsonToken.BEGIN_ARRAY) {
+                    throw new UpdateCheckException(
+                            "Expected a JSON array from GitHub Releases API, but got something else.");
                 }
 
-                if (latestVersion == null || parsedVersion.compareTo(latestVersion) > 0) {
-                    latestTagName = tagName;
-                    latestVersion = parsedVersion;
-                    latestIsPrerelease = isPrerelease;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    count++;
+                    Release release = readRelease(reader);
+                    if (release == null || (release.prerelease() && !includePrereleases)) continue;
+
+                    if (release.version().compareTo(currentVersion) <= 0) {
+                        reachedCurrentVersion = true;
+                    } else if (newest == null || release.version().compareTo(newest.version()) > 0) {
+                        newest = release;
+                    }
                 }
+                reader.endArray();
             }
 
-            if (latestVersion == null || latestVersion.compareTo(currentVersion) <= 0) {
-                return Optional.empty();
+            // releases are listed newest first, older pages can't contain anything newer than the installed version
+            if (reachedCurrentVersion || count < PER_PAGE) break;
+        }
+
+        return newest;
+    }
+
+    /**
+     * Reads one release object, skipping everything but its tag and prerelease flag.
+     *
+     * @return The release, or {@code null} if it is a draft or its tag couldn't be parsed.
+     */
+    private @Nullable Release readRelease(JsonReader reader) throws IOException {
+        String tagName = null;
+        boolean prerelease = false;
+        boolean draft = false;
+
+        reader.beginObject();
+        while (reader.hasNext()) {
+            switch (reader.nextName()) {
+                case "tag_name" -> tagName = reader.nextString();
+                case "prerelease" -> prerelease = reader.nextBoolean();
+                case "draft" -> draft = reader.nextBoolean();
+                default -> reader.skipValue();
             }
+        }
+        reader.endObject();
 
-            return Optional.of(new UpdateInfo(
-                    releaseUrlFunction.apply(latestTagName),
-                    latestVersion.getFriendlyString(),
-                    updateChannelFunction.apply(latestVersion, latestIsPrerelease)));
+        if (tagName == null || draft) return null;
 
-        } catch (Exception e) {
-            throw new UpdateCheckException("Unknown exception occurred during update check.", e);
+        Version version = tagParseFunction.apply(tagName);
+        if (version == null) {
+            LogUtil.err("Failed to compare current version with new version (%s).".formatted(tagName));
+            return null;
         }
+
+        return new Release(tagName, version, prerelease);
     }
 
     /**
@@ -257,4 +337,6 @@ public class GithubUpdateChecker implements UpdateChecker {
     private static String extractRepoNameFromIdentifier(@NotNull String repoIdentifier) {
         return getRepoParts(repoIdentifier)[1];
     }
+
+    private record Release(String tagName, Version version, boolean prerelease) {}
 }
@@ -2,33 +2,37 @@ package de.rhm176.modmenu.api.update;
 
 import de.rhm176.modmenu.util.HttpUtil;
 import de.rhm176.modmenu.util.LogUtil;
-import java.io.InputStream;
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.net.http.HttpResponse;
 import java.util.Optional;
 import java.util.function.BiFunction;
 import java.util.function.Function;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import net.fabricmc.loader.api.*;
 import net.fabricmc.loader.api.metadata.ModMetadata;
 import org.jetbrains.annotations.ApiStatus;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import org.w3c.dom.Document;
-import org.w3c.dom.NodeList;
 
 /**
  * An implementation of {@link UpdateChecker} that checks for updates from a Maven repository.
  * <p>
  * This class works by fetching and parsing the {@code maven-metadata.xml} file for a given
- * artifact. It extracts all available versions, compares them against the currently installed
+ * artifact. It finds the newest available version, compares it against the currently installed
  * version, and reports if a newer version is found.
  *
  * @since 1.0.0
  */
 @ApiStatus.AvailableSince("1.0.0")
 public class MavenUpdateChecker implements UpdateChecker {
+    private static final int MAX_METADATA_BYTES = 2 * 1024 * 1024;
+    private static final String SNAPSHOT = "SNAPSHOT";
+    private static final XMLInputFactory XML_INPUT_FACTORY = createXmlInputFactory();
+
     private final URI metadataUrl;
     private final String modId;
     private final String friendlyRepoName;
@@ -125,8 +129,9 @@ public class MavenUpdateChecker implements UpdateChecker {
     /**
      * {@inheritDoc}
      * <p>
-     * This implementation fetches and parses the {@code maven-metadata.xml} from the configured
-     * repository to find the latest available version.
+     * This implementation streams the {@code maven-metadata.xml} from the configured repository. It uses the
+     * {@code <release>} (or, outside the {@link UpdateChannel#RELEASE} channel, {@code <latest>}) version when the
+     * metadata names one and only scans all listed versions otherwise.
      *
      * @throws UpdateCheckException if there is a network error, a problem parsing the XML,
      * or any other issue during the check.
@@ -143,8 +148,8 @@ public class MavenUpdateChecker implements UpdateChecker {
         Version currentVersion = modMetadata.getVersion();
 
         try {
-            HttpResponse<InputStream> response =
-                    HttpUtil.httpGet(metadataUrl, HttpResponse.BodyHandlers.ofInputStream());
+            HttpResponse<byte[]> response =
+                    HttpUtil.httpGet(metadataUrl, HttpResponse.BodyHandlers.ofByteArray(), MAX_METADATA_BYTES);
 
             if (response.statusCode() != 200) {
                 throw new UpdateCheckException(
@@ -152,54 +157,92 @@ public class MavenUpdateChecker implements UpdateChecker {
                                 .formatted(friendlyRepoName, response.statusCode()));
             }
 
-            try (InputStream responseBody = response.body()) {
-                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder builder = factory.newDocumentBuilder();
-                Document doc = builder.parse(responseBody);
-                doc.getDocumentElement().normalize();
+            Candidate latest = findLatestVersion(response.body());
+            if (latest == null || latest.version().compareTo(currentVersion) <= 0) {
+                return Optional.empty();
+            }
 
-                NodeList versionNodes = doc.getElementsByTagName("version");
-                if (versionNodes.getLength() == 0) {
-                    throw new UpdateCheckException("No versions found in maven-metadata.xml.");
-                }
+            return Optional.of(new UpdateInfo(
+                    releaseUrlFunction.apply(latest.versionStr()),
+                    latest.version().getFriendlyString(),
+                    updateChannelFunction.apply(latest.version(), latest.snapshot())));
+        } catch (Exception e) {
+            throw new UpdateCheckException("Unknown exception occurred during update check.", e);
+        }
+    }
 
-                Version latestVersion = null;
-                String latestVersionStr = null;
+    /**
+     * @return The newest version the user wants to be offered, or {@code null} if there is none.
+     */
+    private @Nullable Candidate findLatestVersion(byte[] metadata) throws XMLStreamException {
+        boolean releasesOnly = UpdateChannel.getUserPreference() == UpdateChannel.RELEASE;
+        String preferredElement = releasesOnly ? "release" : "latest";
 
-                for (int i = 0; i < versionNodes.getLength(); i++) {
-                    String versionStr = versionNodes.item(i).getTextContent();
-                    boolean isSnapshot = versionStr.toUpperCase().contains("SNAPSHOT");
+        Candidate preferred = null;
+        Candidate newest = null;
+        boolean foundVersions = false;
 
-                    if (UpdateChannel.getUserPreference() == UpdateChannel.RELEASE && isSnapshot) {
-                        continue;
+        XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(new ByteArrayInputStream(metadata));
+        try {
+            while (reader.hasNext()) {
+                if (reader.next() != XMLStreamConstants.START_ELEMENT) continue;
+
+                String name = reader.getLocalName();
+                if (name.equals(preferredElement)) {
+                    preferred = toCandidate(reader.getElementText().trim(), releasesOnly);
+                } else if (name.equals("versions")) {
+                    // Maven writes <release> and <latest> before <versions>
+                    if (preferred != null) break;
+                } else if (name.equals("version")) {
+                    foundVersions = true;
+
+                    Candidate candidate = toCandidate(reader.getElementText().trim(), releasesOnly);
+                    if (candidate != null && (newest == null || candidate.version().compareTo(newest.version()) > 0)) {
+                        newest = candidate;
                     }
+                }
+            }
+        } finally {
+            reader.close();
+        }
 
-                    Version parsedVersion = versionParseFunction.apply(versionStr);
-                    if (parsedVersion == null) {
-                        LogUtil.err("Failed to parse version '%s' from %s.".formatted(versionStr, friendlyRepoName));
-                        continue;
-                    }
+        if (preferred == null && !foundVersions) {
+            throw new UpdateCheckException("No versions found in maven-metadata.xml.");
+        }
 
-                    if (latestVersion == null || parsedVersion.compareTo(latestVersion) > 0) {
-                        latestVersion = parsedVersion;
-                        latestVersionStr = versionStr;
-                    }
-                }
+        return preferred != null ? preferred : newest;
+    }
 
-                if (latestVersion == null || latestVersion.compareTo(currentVersion) <= 0) {
-                    return Optional.empty();
-                }
+    private @Nullable Candidate toCandidate(String versionStr, boolean releasesOnly) {
+        if (versionStr.isEmpty()) return null;
 
-                boolean isLatestSnapshot = latestVersionStr.toUpperCase().contains("SNAPSHOT");
+        boolean snapshot = isSnapshot(versionStr);
+        if (releasesOnly && snapshot) return null;
 
-                return Optional.of(new UpdateInfo(
-                        releaseUrlFunction.apply(latestVersionStr),
-                        latestVersion.getFriendlyString(),
-                        updateChannelFunction.apply(latestVersion, isLatestSnapshot)));
-            }
+        Version version = versionParseFunction.apply(versionStr);
+        if (version == null) {
+            LogUtil.err("Failed to parse version '%s' from %s.".formatted(versionStr, friendlyRepoName));
+            return null;
+        }
 
-        } catch (Exception e) {
-            throw new UpdateCheckException("Unknown exception occurred during update check.", e);
+        return new Candidate(versionStr, version, snapshot);
+    }
+
+    private static boolean isSnapshot(String versionStr) {
+        for (int i = versionStr.length() - SNAPSHOT.length(); i >= 0; i--) {
+            if (versionStr.regionMatches(true, i, SNAPSHOT, 0, SNAPSHOT.length())) return true;
         }
+
+        return false;
     }
+
+    private static XMLInputFactory createXmlInputFactory() {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        // maven-metadata.xml never needs a DTD or entities, refusing them rules out XXE and entity expansion
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+        return factory;
+    }
+
+    private record Candidate(String versionStr, Version version, boolean snapshot) {}
 }
@@ -21,6 +21,11 @@ public class Config {
 
     public UpdateChannel updateChannel = UpdateChannel.RELEASE;
     public boolean enableUpdateChecking = true;
+    public int httpCacheTtlMinutes = 60;
+
+    public int iconPrefetchRows = 4;
+
+    public boolean deferredInitialization = false;
 
     private Config() {}
 
@@ -45,6 +50,9 @@ public class Config {
     }
 
     public void save() {
+        // the sorting order may have changed
+        SortingOrder.invalidateCache();
+
         try (var writer = Files.newBufferedWriter(CONFIG_FILE)) {
             GSON.toJson(config, writer);
         } catch (Exception exception) {
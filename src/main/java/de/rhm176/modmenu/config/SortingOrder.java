@@ -2,78 +2,131 @@ package de.rhm176.modmenu.config;
 
 import de.rhm176.modmenu.Mod;
 import de.rhm176.modmenu.ModMenu;
+import de.rhm176.modmenu.ModRegistry;
+import de.rhm176.modmenu.util.ModContentSize;
 import java.util.*;
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 
+/**
+ * The orders the mod list can be sorted in.
+ * <p>
+ * Mods are compared through precomputed {@link SortKey}s instead of their getters, and the sorted order of every
+ * {@link SortingOrder} is cached until {@link #invalidateCache()} is called, which happens whenever the config is
+ * saved, an update check finds an update or queued mods have been measured by {@link ModContentSize}.
+ */
 @ApiStatus.Internal
 public enum SortingOrder {
     A_Z {
         @Override
-        public Comparator<Mod> getBaseComparator() {
-            return Comparator.comparing(Mod::getId, String.CASE_INSENSITIVE_ORDER);
+        protected Comparator<SortKey> getKeyComparator() {
+            return Comparator.comparing(SortKey::foldedId);
         }
     },
 
     Z_A {
         @Override
-        public Comparator<Mod> getBaseComparator() {
-            return Comparator.comparing(Mod::getId, String.CASE_INSENSITIVE_ORDER)
-                    .reversed();
+        protected Comparator<SortKey> getKeyComparator() {
+            return Comparator.comparing(SortKey::foldedId).reversed();
         }
     },
 
     UPDATE_AVAILABLE {
         @Override
-        public Comparator<Mod> getBaseComparator() {
-            return Comparator.<Mod, Boolean>comparing(mod -> mod.getUpdateInfo() == null)
-                    .thenComparing(mod -> mod.getUpdateChecker() == null);
+        protected Comparator<SortKey> getKeyComparator() {
+            return Comparator.comparing((SortKey key) -> !key.updateAvailable())
+                    .thenComparing(key -> !key.mayHaveUpdateChecker())
+                    .thenComparing(SortKey::foldedId);
+        }
+    },
+
+    CLASS_COUNT {
+        @Override
+        protected Comparator<SortKey> getKeyComparator() {
+            // mods that haven't been measured yet go last until they are
+            return Comparator.comparing(SortKey::contentSize, Comparator.nullsLast(ModContentSize.LARGEST_FIRST))
+                    .thenComparing(SortKey::foldedId);
         }
     };
 
-    public abstract Comparator<Mod> getBaseComparator();
+    private static final Map<SortingOrder, int[]> SORTED = new EnumMap<>(SortingOrder.class);
+    private static ModRegistry cachedRegistry;
+    private static SortKey[] keys;
 
-    public Comparator<Mod> getComparator() {
-        Map<String, String> childToParentMap = new HashMap<>();
-        Map<String, Mod> rootCache = new HashMap<>();
-        Comparator<Mod> baseComparator = getBaseComparator();
+    protected abstract Comparator<SortKey> getKeyComparator();
 
-        ModMenu.MOD_CHILDREN.forEach(
-                (parent, children) -> children.forEach(child -> childToParentMap.put(child, parent)));
+    /**
+     * @return The indices of all mods in {@code registry} in the order they are listed: every mod directly followed by
+     * its children, with roots and siblings sorted by this order and ties broken by id. The returned array is shared
+     * and must not be modified.
+     */
+    public int[] sort(ModRegistry registry) {
+        synchronized (SortingOrder.class) {
+            if (registry != cachedRegistry) {
+                cachedRegistry = registry;
+                invalidateCache();
+            }
 
-        return (mod1, mod2) -> {
-            Mod root1 = getRoot(mod1, childToParentMap, rootCache);
-            Mod root2 = getRoot(mod2, childToParentMap, rootCache);
+            int[] sorted = SORTED.get(this);
+            if (sorted == null) {
+                SortKey[] sortKeys = getKeys(registry);
+                Comparator<SortKey> comparator = getKeyComparator().thenComparing(SortKey::id);
 
-            if (!root1.getId().equals(root2.getId())) {
-                return baseComparator.compare(root1, root2);
+                sorted = registry.traverse((a, b) -> comparator.compare(sortKeys[a], sortKeys[b]));
+                SORTED.put(this, sorted);
             }
 
-            if (mod1.getId().equals(root1.getId())) {
-                return -1;
-            } else if (mod2.getId().equals(root2.getId())) {
-                return 1;
-            } else {
-                return baseComparator.compare(mod1, mod2);
-            }
-        };
+            return sorted;
+        }
+    }
+
+    /**
+     * Orders mods like {@link #sort(ModRegistry)}. Sorting the indices directly is cheaper, this is only meant for
+     * code that needs a {@link Comparator}.
+     */
+    public Comparator<Mod> getComparator() {
+        ModRegistry registry = ModMenu.REGISTRY;
+        int[] order = sort(registry);
+        int[] ranks = new int[order.length];
+        for (int position = 0; position < order.length; position++) {
+            ranks[order[position]] = position;
+        }
+
+        return Comparator.comparingInt(mod -> mod.getIndex() >= 0 ? ranks[mod.getIndex()] : Integer.MAX_VALUE);
+    }
+
+    /**
+     * Drops all cached orders and the update related sort keys.
+     */
+    public static synchronized void invalidateCache() {
+        SORTED.clear();
+        keys = null;
     }
 
-    private static Mod getRoot(Mod mod, Map<String, String> childToParentMap, Map<String, Mod> cache) {
-        return cache.computeIfAbsent(mod.getId(), id -> {
-            Set<String> visited = new HashSet<>();
-            Mod current = mod;
-            String parentId;
-            while ((parentId = childToParentMap.get(current.getId())) != null) {
-                if (!visited.add(current.getId())) {
-                    return mod;
-                }
-                Mod parentMod = ModMenu.MODS.get(parentId);
-                if (parentMod == null) {
-                    break;
-                }
-                current = parentMod;
+    private static SortKey[] getKeys(ModRegistry registry) {
+        if (keys == null) {
+            keys = new SortKey[registry.size()];
+            for (int i = 0; i < registry.size(); i++) {
+                Mod mod = registry.getMod(i);
+                keys[i] = new SortKey(
+                        mod,
+                        mod.getId().toLowerCase(Locale.ROOT),
+                        mod.getId(),
+                        mod.getUpdateInfo() != null,
+                        mod.mayHaveUpdateChecker());
             }
-            return current;
-        });
+        }
+
+        return keys;
+    }
+
+    protected record SortKey(
+            Mod mod, String foldedId, String id, boolean updateAvailable, boolean mayHaveUpdateChecker) {
+        /**
+         * Looked up on first use, so orders that don't need it never walk the mods' files.
+         */
+        @Nullable ModContentSize contentSize() {
+            return ModContentSize.get(mod);
+        }
     }
 }
@@ -1,6 +1,8 @@
 package de.rhm176.modmenu.mixin;
 
+import de.rhm176.modmenu.ModMenu;
 import de.rhm176.modmenu.api.ModMenuApi;
+import de.rhm176.modmenu.util.MixinProfiler;
 import gameMenu.DnaButtonGui;
 import gameMenu.GameMenuGui;
 import gameMenu.MenuPanelGui;
@@ -24,10 +26,19 @@ public abstract class MenuPanelGuiMixin extends GuiComponent {
 
     @Inject(method = "init", at = @At("TAIL"))
     private void addModsButton(CallbackInfo ci) {
+        // startup is over once the main menu is shown
+        MixinProfiler.dumpOnce();
+
         addButton(8, new GuiTexture(Texture.getEmptyTexture()), "Mods", event -> {
             if (event.isLeftClick()) {
                 this.gameMenu.setNewSecondaryScreen(ModMenuApi.getModMenuPanel(gameMenu));
             }
         });
     }
+
+    @Inject(method = "updateSelf", at = @At("TAIL"))
+    private void continueInitialization(CallbackInfo ci) {
+        // the game is idle on its main menu, a good time to load the mod list bit by bit if that was deferred
+        ModMenu.continueInitialization(false);
+    }
 }
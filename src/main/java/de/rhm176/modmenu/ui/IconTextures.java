@@ -0,0 +1,207 @@
+package de.rhm176.modmenu.ui;
+
+import de.rhm176.modmenu.ModMenu;
+import de.rhm176.modmenu.ModMenuUtil;
+import de.rhm176.modmenu.util.DirectBufferPool;
+import de.rhm176.modmenu.util.LogUtil;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import net.fabricmc.loader.api.ModContainer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+import textures.Texture;
+
+/**
+ * Shared GL textures for every icon shown by the mod list.
+ * <p>
+ * Each distinct icon (source mod, file, size and filtering) is uploaded once and then reused by every row that
+ * shows it. Mods without an icon all share the same unknown icon texture, which, like Mod Menu's other built-in
+ * textures, is loaded through {@link #get} and kept for the whole session.
+ * <p>
+ * Icons requested through {@link #request} are decoded on a small worker pool; the render thread only uploads
+ * the finished pixels, at most {@link #UPLOADS_PER_FRAME} per call to {@link #processUploads()}. Every request
+ * must be paired with a {@link #release}. Textures nobody uses anymore are kept around for a while, so
+ * reopening the menu or scrolling back doesn't upload them again, and are deleted once more than
+ * {@link #MAX_IDLE_TEXTURES} of them pile up.
+ * <p>
+ * Apart from the decoding itself, everything here must only be used from the render thread.
+ */
+@ApiStatus.Internal
+public final class IconTextures {
+    public static final String UNKNOWN_ICON = "assets/" + ModMenu.MOD_ID + "/unknown_icon.png";
+    public static final int UPLOADS_PER_FRAME = 8;
+    public static final int MAX_IDLE_TEXTURES = 128;
+
+    private static final Map<IconKey, Texture> PERMANENT = new HashMap<>();
+    private static final Map<IconKey, Texture> TEXTURES = new HashMap<>();
+    private static final Map<IconKey, Integer> REFERENCES = new HashMap<>();
+    private static final LinkedHashMap<IconKey, Texture> IDLE = new LinkedHashMap<>();
+    private static final Map<IconKey, List<Consumer<Texture>>> PENDING = new HashMap<>();
+    private static final Queue<DecodedIcon> DECODED = new ConcurrentLinkedQueue<>();
+    private static final ExecutorService DECODER = Executors.newFixedThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setName(ModMenu.MOD_MENU_CONTAINER.getMetadata().getName() + "/Icon Decoder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean loggedPoolStatistics;
+
+    private IconTextures() {}
+
+    /**
+     * Gets the texture of an icon, decoding and uploading it right away if necessary. Textures obtained this way
+     * are shared by everyone asking for the same icon, aren't reference counted and are never deleted.
+     *
+     * @return The texture, or {@code null} if the icon could not be loaded.
+     */
+    public static @Nullable Texture get(ModContainer container, String file, int size, boolean pixelPerfect) {
+        IconKey key = new IconKey(container, file, size, pixelPerfect);
+        if (!PERMANENT.containsKey(key)) {
+            PERMANENT.put(key, createTexture(key, ModMenuUtil.loadPng(container, file, size, pixelPerfect)));
+        }
+
+        return PERMANENT.get(key);
+    }
+
+    /**
+     * Gets the texture of an icon if it is already uploaded, otherwise queues it for decoding.
+     *
+     * @param onReady Called on the render thread once the texture has been uploaded. It is not called if the
+     *                icon turns out not to be loadable.
+     * @return The texture if it is already available, otherwise {@code null}.
+     */
+    public static @Nullable Texture request(IconKey key, Consumer<Texture> onReady) {
+        retain(key);
+        if (TEXTURES.containsKey(key)) return TEXTURES.get(key);
+
+        List<Consumer<Texture>> callbacks = PENDING.get(key);
+        if (callbacks == null) {
+            PENDING.put(key, callbacks = new ArrayList<>());
+            DECODER.execute(() -> {
+                ByteBuffer buffer = null;
+                try {
+                    buffer = ModMenuUtil.loadPng(key.container(), key.file(), key.size(), key.pixelPerfect());
+                } catch (Throwable t) {
+                    LogUtil.err(
+                            "Could not decode icon " + key.file() + " for mod: "
+                                    + key.container().getMetadata().getId(),
+                            t);
+                }
+                DECODED.add(new DecodedIcon(key, buffer));
+            });
+        }
+        callbacks.add(onReady);
+
+        return null;
+    }
+
+    /**
+     * Gives up one reference obtained through {@link #request}.
+     */
+    public static void release(IconKey key) {
+        Integer references = REFERENCES.get(key);
+        if (references == null) return;
+
+        if (references > 1) {
+            REFERENCES.put(key, references - 1);
+            return;
+        }
+
+        REFERENCES.remove(key);
+        Texture texture = TEXTURES.get(key);
+        if (texture != null) {
+            IDLE.put(key, texture);
+            trimIdle();
+        }
+    }
+
+    /**
+     * Uploads icons that finished decoding and notifies the rows waiting for them.
+     */
+    public static void processUploads() {
+        DecodedIcon decoded;
+        for (int i = 0; i < UPLOADS_PER_FRAME && (decoded = DECODED.poll()) != null; i++) {
+            Texture texture = upload(decoded.key(), decoded.pixels());
+
+            List<Consumer<Texture>> callbacks = PENDING.remove(decoded.key());
+            if (texture != null) {
+                if (!REFERENCES.containsKey(decoded.key())) {
+                    // every row gave up on this icon while it was decoding
+                    IDLE.put(decoded.key(), texture);
+                    trimIdle();
+                } else if (callbacks != null) {
+                    callbacks.forEach(callback -> callback.accept(texture));
+                }
+            }
+
+            if (PENDING.isEmpty() && !loggedPoolStatistics) {
+                // only the first batch, i.e. the first open, is interesting; later drains happen on every scroll
+                loggedPoolStatistics = true;
+                LogUtil.log("Finished loading icons. Buffer pool: " + DirectBufferPool.getStatistics());
+            }
+        }
+    }
+
+    /**
+     * Gets a texture from Mod Menu's own assets.
+     */
+    public static Texture getBuiltin(String file, int size) {
+        return get(ModMenu.MOD_MENU_CONTAINER, file, size, false);
+    }
+
+    public static Texture getUnknownIcon(int size) {
+        return getBuiltin(UNKNOWN_ICON, size);
+    }
+
+    private static void retain(IconKey key) {
+        REFERENCES.merge(key, 1, Integer::sum);
+        IDLE.remove(key);
+    }
+
+    private static void trimIdle() {
+        Iterator<Map.Entry<IconKey, Texture>> iterator = IDLE.entrySet().iterator();
+        while (IDLE.size() > MAX_IDLE_TEXTURES && iterator.hasNext()) {
+            Map.Entry<IconKey, Texture> eldest = iterator.next();
+            iterator.remove();
+
+            TEXTURES.remove(eldest.getKey());
+            eldest.getValue().delete();
+        }
+    }
+
+    private static Texture upload(IconKey key, @Nullable ByteBuffer pixels) {
+        Texture texture = createTexture(key, pixels);
+        // icons that failed to load are remembered as well, so they aren't decoded again on every open
+        TEXTURES.put(key, texture);
+
+        return texture;
+    }
+
+    private static @Nullable Texture createTexture(IconKey key, @Nullable ByteBuffer pixels) {
+        if (pixels == null) return null;
+
+        Texture texture = ModMenuUtil.createTexture(pixels, key.size(), key.size(), (builder) -> {
+            if (key.pixelPerfect()) builder.noFiltering().nearestFiltering().clampEdges();
+        });
+        DirectBufferPool.release(pixels);
+
+        return texture;
+    }
+
+    /**
+     * Identifies one icon texture.
+     *
+     * @param container    The mod whose jar contains the icon.
+     * @param file         The path of the icon within that jar.
+     * @param size         The width and height the icon is scaled to.
+     * @param pixelPerfect Whether the icon is scaled and sampled with nearest neighbour filtering.
+     */
+    public record IconKey(ModContainer container, String file, int size, boolean pixelPerfect) {}
+
+    private record DecodedIcon(IconKey key, @Nullable ByteBuffer pixels) {}
+}
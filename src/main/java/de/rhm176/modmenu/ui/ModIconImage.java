@@ -0,0 +1,62 @@
+package de.rhm176.modmenu.ui;
+
+import guiRendering.GuiRenderData;
+import guis.GuiComponent;
+import guis.GuiTexture;
+import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.util.vector.Vector2f;
+import textures.Texture;
+
+/**
+ * An image whose texture can be swapped after it was added, e.g. once an icon has finished loading.
+ */
+@ApiStatus.Internal
+public class ModIconImage extends GuiComponent {
+    private GuiTexture texture;
+
+    private final Vector2f position = new Vector2f();
+    private final Vector2f scale = new Vector2f();
+    private int[] clippingBounds;
+
+    public ModIconImage(Texture texture) {
+        this.texture = new GuiTexture(texture);
+    }
+
+    public void setTexture(Texture texture) {
+        this.texture = new GuiTexture(texture);
+        this.texture.setPosition(position.x, position.y, scale.x, scale.y);
+        if (clippingBounds != null) {
+            this.texture.setClippingBounds(clippingBounds);
+        }
+    }
+
+    public GuiTexture getTexture() {
+        return texture;
+    }
+
+    @Override
+    protected void updateGuiTexturePositions(Vector2f position, Vector2f scale) {
+        this.position.x = position.x;
+        this.position.y = position.y;
+        this.scale.x = scale.x;
+        this.scale.y = scale.y;
+
+        texture.setPosition(position.x, position.y, scale.x, scale.y);
+    }
+
+    @Override
+    protected void updateSelf() {
+        texture.update();
+    }
+
+    @Override
+    protected void getGuiTextures(GuiRenderData data) {
+        data.addTexture(this.getLevel(), texture);
+    }
+
+    @Override
+    protected void setTextureClippingBounds(int[] bounds) {
+        this.clippingBounds = bounds;
+        texture.setClippingBounds(bounds);
+    }
+}
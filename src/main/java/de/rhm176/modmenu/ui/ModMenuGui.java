@@ -1,8 +1,12 @@
 package de.rhm176.modmenu.ui;
 
 import de.rhm176.api.lang.I18n;
+import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModBadgeType;
 import de.rhm176.modmenu.ModMenu;
 import de.rhm176.modmenu.util.LogUtil;
+import de.rhm176.modmenu.util.ModFacetIndex;
+import de.rhm176.modmenu.util.ModSearchIndex;
 import fontRendering.Text;
 import gameMenu.GameMenuGui;
 import gameMenu.SecondPanelUi;
@@ -11,6 +15,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.EnumSet;
+import java.util.Set;
 import mainGuis.ColourPalette;
 import mainGuis.EquilinoxGuis;
 import mainGuis.GuiRepository;
@@ -25,22 +31,32 @@ import userInterfaces.Listener;
 public class ModMenuGui extends SecondPanelUi {
     private static final float BUTTON_PADDING = 0.01f;
 
-    private final ModMenuModInfoUi infoUi;
-    private final ModMenuListUi listUi;
+    private final GameMenuGui gameMenu;
+    private final Set<FacetToggle> enabledToggles = EnumSet.noneOf(FacetToggle.class);
+
+    private ModMenuModInfoUi infoUi;
+    private ModMenuListUi listUi;
+    private ModSearchField searchField;
+    private LoadingPanel loadingPanel;
 
     public ModMenuGui(GameMenuGui gameMenu) {
         super(gameMenu);
+        this.gameMenu = gameMenu;
 
-        infoUi = new ModMenuModInfoUi();
-        listUi = new ModMenuListUi(infoUi, gameMenu);
+        // the language can only change while the menu is closed, so translated values only need checking on open
+        if (Mod.invalidateViewsIfLanguageChanged()) {
+            ModSearchIndex.invalidate();
+        }
+        // the mod list may still be loading, or have failed to load the last time, and is shown once that is done
+        if (ModMenu.REGISTRY == null) {
+            ModMenu.requestInitialization();
+        }
     }
 
     @Override
     protected void init() {
         super.init();
 
-        addComponent(infoUi, 0.58F, 0.05F, 0.4f, 0.8F);
-
         addButton(
                 I18n.translate("modmenu.modsFolder"),
                 (on) -> tryOpenFolder(FabricLoader.getInstance().getGameDir().resolve("mods")),
@@ -51,7 +67,68 @@ public class ModMenuGui extends SecondPanelUi {
                 (on) -> tryOpenFolder(FabricLoader.getInstance().getGameDir().resolve("config")),
                 0.78F + (BUTTON_PADDING / 2.0f));
 
-        addComponent(listUi, 0.075f, 0.05F, 0.5F, 0.9F);
+        if (ModMenu.REGISTRY == null) {
+            loadingPanel = new LoadingPanel();
+            addComponent(loadingPanel, 0.075f, 0.11F, 0.5F, 0.84F);
+        } else {
+            addModList();
+        }
+    }
+
+    @Override
+    protected void updateSelf() {
+        super.updateSelf();
+
+        if (loadingPanel != null) ModMenu.continueInitialization(true);
+        if (loadingPanel != null && ModMenu.REGISTRY != null) {
+            removeComponent(loadingPanel);
+            loadingPanel = null;
+            addModList();
+        }
+    }
+
+    private void addModList() {
+        if (listUi == null) {
+            infoUi = new ModMenuModInfoUi();
+            listUi = new ModMenuListUi(infoUi, gameMenu);
+            searchField = new ModSearchField(I18n.translate("modmenu.search"), listUi::setSearchQuery);
+        }
+
+        addComponent(infoUi, 0.58F, 0.05F, 0.4f, 0.8F);
+        addComponent(searchField, 0.075f, 0.05F, 0.26F, 0.05F);
+        float toggleX = 0.34f;
+        for (FacetToggle toggle : FacetToggle.values()) {
+            addFacetToggle(toggle, toggleX);
+            toggleX += 0.08f;
+        }
+        addComponent(listUi, 0.075f, 0.11F, 0.5F, 0.84F);
+    }
+
+    private void addFacetToggle(FacetToggle toggle, float relX) {
+        Text guiText = Text.newText(I18n.translate(toggle.translationKey))
+                .setFontSize(UiSettings.NORM_FONT)
+                .center()
+                .create();
+        guiText.setColour(enabledToggles.contains(toggle) ? ColourPalette.WHITE : ColourPalette.LIGHT_GREY);
+        ModMenuButton button = new ModMenuButton(guiText);
+
+        button.addListener((on) -> {
+            if (!enabledToggles.remove(toggle)) enabledToggles.add(toggle);
+            guiText.setColour(enabledToggles.contains(toggle) ? ColourPalette.WHITE : ColourPalette.LIGHT_GREY);
+
+            Set<ModBadgeType> requiredBadges = EnumSet.noneOf(ModBadgeType.class);
+            Set<ModBadgeType> hiddenBadges = EnumSet.noneOf(ModBadgeType.class);
+            Set<ModFacetIndex.Capability> requiredCapabilities = EnumSet.noneOf(ModFacetIndex.Capability.class);
+            for (FacetToggle enabled : enabledToggles) {
+                switch (enabled) {
+                    case UPDATES -> requiredBadges.add(ModBadgeType.UPDATE);
+                    case NO_LIBRARIES -> hiddenBadges.add(ModBadgeType.LIBRARY);
+                    case CONFIGURABLE -> requiredCapabilities.add(ModFacetIndex.Capability.CONFIG_SCREEN);
+                }
+            }
+            listUi.setFacetFilter(new ModFacetIndex.Filter(requiredBadges, hiddenBadges, requiredCapabilities));
+        });
+        addComponent(button, relX, 0.05F, 0.075f, 0.05F);
     }
 
     private static void tryOpenFolder(Path path) {
@@ -82,6 +159,36 @@ public class ModMenuGui extends SecondPanelUi {
         addComponent(button, relX, 0.875f, 0.195f, 0.05f);
     }
 
+    private static class LoadingPanel extends GuiPanel {
+        private LoadingPanel() {
+            super(ColourPalette.DARK_GREY, 0.7F);
+        }
+
+        @Override
+        protected void init() {
+            super.init();
+
+            Text text = Text.newText(I18n.translate("modmenu.loading"))
+                    .setFontSize(UiSettings.NORM_FONT)
+                    .center()
+                    .create();
+            text.setColour(ColourPalette.LIGHT_GREY);
+            addText(text, 0, 0.45F, 1.0F);
+        }
+    }
+
+    private enum FacetToggle {
+        UPDATES("modmenu.filter.updates"),
+        NO_LIBRARIES("modmenu.filter.noLibraries"),
+        CONFIGURABLE("modmenu.filter.configurable");
+
+        private final String translationKey;
+
+        FacetToggle(String translationKey) {
+            this.translationKey = translationKey;
+        }
+    }
+
     public static class ModMenuButton extends GuiTextButton {
         public ModMenuButton(Text text) {
             this(text, 0.7F);
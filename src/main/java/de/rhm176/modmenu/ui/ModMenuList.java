@@ -2,22 +2,31 @@ package de.rhm176.modmenu.ui;
 
 import de.rhm176.api.lang.I18n;
 import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModBadgeType;
 import de.rhm176.modmenu.ModMenu;
 import de.rhm176.modmenu.ModMenuUtil;
+import de.rhm176.modmenu.ModRegistry;
 import de.rhm176.modmenu.api.ModConfigPanelFactory;
 import de.rhm176.modmenu.config.Config;
 import de.rhm176.modmenu.mixin.GuiPanelAccessor;
 import de.rhm176.modmenu.ui.button.ModIconButton;
+import de.rhm176.modmenu.util.ModFacetIndex;
+import de.rhm176.modmenu.util.ModSearchIndex;
 import evolveStatusOverview.EvolveOverviewUi;
 import fontRendering.Text;
 import gameMenu.GameMenuGui;
 import guiRendering.GuiRenderData;
 import guis.GuiComponent;
 import guis.GuiTexture;
-import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import mainGuis.ColourPalette;
 import mainGuis.GuiRepository;
 import mainGuis.UiSettings;
@@ -28,17 +37,46 @@ import textures.Texture;
 import toolbox.Colour;
 import toolbox.MyMouse;
 import userInterfaces.GuiClickable;
-import userInterfaces.GuiImage;
 import userInterfaces.GuiPanel;
 
+/**
+ * The scrollable list of mods.
+ * <p>
+ * Only the rows within {@link Config#iconPrefetchRows} rows of the visible part of the list exist as components.
+ * They are kept in a pool and rebound to other mods as the list scrolls, so the number of live components, texts
+ * and badges depends on the size of the viewport instead of the number of installed mods. The position of every
+ * row comes from a prefix sum over the row heights.
+ * <p>
+ * Mods listed in {@link ModMenu#MOD_CHILDREN} are shown below their parent once it is expanded. Expanding or
+ * collapsing a mod only inserts or removes the rows of its subtree and shifts the offsets of the rows below it.
+ * While a search query or a facet filter is active, the tree is replaced by a flat list of the matching mods.
+ */
 @ApiStatus.Internal
 public class ModMenuList extends GuiComponent {
     public static final int ELEMENT_PADDING = 8;
-
-    private final List<ModMenuListElement> modMenuListElements = new ArrayList<>();
+    private static final int TOP_PADDING = 10;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Mod> roots = new ArrayList<>();
+    private final List<Mod> sortedMods = new ArrayList<>();
+    private final Map<Mod, List<Mod>> children = new HashMap<>();
+    private final Set<Mod> expanded = new HashSet<>();
+    private String searchQuery = "";
+    private ModFacetIndex.Filter facetFilter = ModFacetIndex.Filter.NONE;
+    private BitSet filterMatches;
+    private int facetModificationCount;
+    private final List<ModMenuListElement> rowPool = new ArrayList<>();
     private final ModMenuModInfoUi infoUi;
     final ModMenuListUi listUi;
-    private int pixelHeight;
+    /**
+     * {@code rowOffsets[i]} is the top of row {@code i} in pixels, {@code rowOffsets[entries.size()]} the height of
+     * the whole list.
+     */
+    private int[] rowOffsets = new int[0];
+
+    private int firstBoundRow = -1;
+    private int lastBoundRow = -1;
+    private Mod selectedMod;
     GameMenuGui gameMenu;
 
     public ModMenuList(ModMenuListUi listUi, ModMenuModInfoUi infoUi, GameMenuGui gameMenu) {
@@ -46,41 +84,202 @@ public class ModMenuList extends GuiComponent {
         this.listUi = listUi;
         this.gameMenu = gameMenu;
 
-        for (Mod mod : ModMenu.MODS.values().stream()
-                .sorted(Config.instance().sortingOrder.getComparator())
-                .toList()) {
-            // if (ModMenu.CHILD_MODS.contains(mod.getId())) continue;
+        buildTree();
+        addTreeEntries();
+
+        recalculateHeight();
+    }
+
+    /**
+     * Shows only the mods matching the query, or the whole tree again if it is blank and no facet filter is set.
+     */
+    public void setSearchQuery(String query) {
+        searchQuery = query;
+        applyFilters();
+    }
+
+    public void setFacetFilter(ModFacetIndex.Filter filter) {
+        facetFilter = filter;
+        applyFilters();
+    }
 
-            ModMenuListElement elem = new ModMenuListElement(this, mod);
-            this.modMenuListElements.add(elem);
+    private void applyFilters() {
+        filterMatches = null;
+        if (!searchQuery.isBlank()) {
+            filterMatches = ModSearchIndex.get().search(searchQuery);
+        }
+        if (!facetFilter.isEmpty()) {
+            facetModificationCount = ModFacetIndex.get().getModificationCount();
+            BitSet facetMatches = ModFacetIndex.get().filter(facetFilter);
+            if (filterMatches == null) {
+                filterMatches = facetMatches;
+            } else {
+                filterMatches.and(facetMatches);
+            }
+        }
+
+        entries.clear();
+        if (filterMatches == null) {
+            addTreeEntries();
+        } else {
+            ModFacetIndex index = ModFacetIndex.get();
+            for (Mod mod : sortedMods) {
+                int slot = index.getSlot(mod);
+                if (slot >= 0 && filterMatches.get(slot)) {
+                    entries.add(new Entry(mod, 0));
+                }
+            }
         }
 
         recalculateHeight();
+        for (ModMenuListElement row : rowPool) {
+            row.boundRow = -1;
+        }
+        firstBoundRow = -1;
+        listUi.realInit();
     }
 
-    public void recalculateHeight() {
-        this.pixelHeight = 10;
+    private void addTreeEntries() {
+        for (Mod root : roots) {
+            entries.add(new Entry(root, 0));
+            if (expanded.contains(root)) {
+                addVisibleChildren(entries, root, 1);
+            }
+        }
+    }
+
+    /**
+     * Sorts every mod below its parent, using the precomputed {@link ModMenu#REGISTRY}.
+     */
+    private void buildTree() {
+        ModRegistry registry = ModMenu.REGISTRY;
+        for (int index : Config.instance().sortingOrder.sort(registry)) {
+            Mod mod = registry.getMod(index);
+            sortedMods.add(mod);
+
+            int parent = registry.getParent(index);
+            if (parent < 0) {
+                roots.add(mod);
+            } else {
+                children.computeIfAbsent(registry.getMod(parent), k -> new ArrayList<>())
+                        .add(mod);
+            }
+        }
+    }
+
+    /**
+     * @return Whether the mod can currently be expanded. The flat list of filtered mods can't be.
+     */
+    boolean hasChildren(Mod mod) {
+        return filterMatches == null && children.containsKey(mod);
+    }
+
+    /**
+     * Expands or collapses the children of the given row.
+     */
+    void toggleChildren(int row) {
+        Entry entry = entries.get(row);
+        if (!hasChildren(entry.mod())) return;
+
+        if (expanded.remove(entry.mod())) {
+            int count = 0;
+            while (row + 1 + count < entries.size()
+                    && entries.get(row + 1 + count).indentLevel() > entry.indentLevel()) {
+                count++;
+            }
+            removeRows(row + 1, count);
+        } else {
+            expanded.add(entry.mod());
+
+            List<Entry> subtree = new ArrayList<>();
+            addVisibleChildren(subtree, entry.mod(), entry.indentLevel() + 1);
+            insertRows(row + 1, subtree);
+        }
+
+        // rows that only moved keep their binding and icon. They are still added again, since the scroll panel can
+        // only be resized through setContents and row positions are relative to the height of the list
+        listUi.realInit();
+        realInit();
+    }
+
+    private void addVisibleChildren(List<Entry> rows, Mod mod, int indentLevel) {
+        for (Mod child : children.getOrDefault(mod, List.of())) {
+            rows.add(new Entry(child, indentLevel));
+            if (expanded.contains(child)) {
+                addVisibleChildren(rows, child, indentLevel + 1);
+            }
+        }
+    }
+
+    private void insertRows(int index, List<Entry> rows) {
+        if (rows.isEmpty()) return;
+
+        int count = rows.size();
+        int oldSize = entries.size();
+        entries.addAll(index, rows);
+
+        int height = 0;
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            offsets[i] = rowOffsets[index] + height;
+            height += ModMenuListElement.getHeightInPixels(rows.get(i)) + ELEMENT_PADDING;
+        }
 
-        List<ModMenuListElement> elementsToRender = new ArrayList<>();
-        addElementsToList(elementsToRender, this.modMenuListElements, 0);
+        int[] newOffsets = new int[oldSize + count + 1];
+        System.arraycopy(rowOffsets, 0, newOffsets, 0, index);
+        System.arraycopy(offsets, 0, newOffsets, index, count);
+        for (int i = index; i <= oldSize; i++) {
+            newOffsets[i + count] = rowOffsets[i] + height;
+        }
+        rowOffsets = newOffsets;
+
+        for (ModMenuListElement pooled : rowPool) {
+            if (pooled.boundRow >= index) pooled.boundRow += count;
+        }
+    }
+
+    private void removeRows(int index, int count) {
+        if (count == 0) return;
+
+        int height = rowOffsets[index + count] - rowOffsets[index];
+        int oldSize = entries.size();
+        entries.subList(index, index + count).clear();
+
+        int[] newOffsets = new int[oldSize - count + 1];
+        System.arraycopy(rowOffsets, 0, newOffsets, 0, index);
+        for (int i = index + count; i <= oldSize; i++) {
+            newOffsets[i - count] = rowOffsets[i] - height;
+        }
+        rowOffsets = newOffsets;
 
-        for (ModMenuListElement modMenuListElement : elementsToRender) {
-            int elementHeight = modMenuListElement.getHeightInPixels();
-            this.pixelHeight = this.pixelHeight + elementHeight + ELEMENT_PADDING;
+        for (ModMenuListElement pooled : rowPool) {
+            if (pooled.boundRow >= index + count) {
+                pooled.boundRow -= count;
+            } else if (pooled.boundRow >= index) {
+                pooled.boundRow = -1;
+            }
         }
     }
 
-    public void setSelectedMod(ModMenuListElement selectedMod) {
-        int index = modMenuListElements.indexOf(selectedMod);
-        if (index == -1) {
-            return;
+    public void recalculateHeight() {
+        rowOffsets = Arrays.copyOf(rowOffsets, entries.size() + 1);
+
+        int offset = TOP_PADDING;
+        for (int i = 0; i < entries.size(); i++) {
+            rowOffsets[i] = offset;
+            offset += ModMenuListElement.getHeightInPixels(entries.get(i)) + ELEMENT_PADDING;
         }
+        rowOffsets[entries.size()] = offset;
+    }
+
+    public void setSelectedMod(Mod selectedMod) {
+        this.selectedMod = selectedMod;
 
-        for (int i = 0; i < modMenuListElements.size(); i++) {
-            if (i == index) {
-                modMenuListElements.get(i).select();
+        for (ModMenuListElement row : rowPool) {
+            if (row.mod == selectedMod) {
+                row.select();
             } else {
-                modMenuListElements.get(i).unselect();
+                row.unselect();
             }
         }
 
@@ -88,7 +287,7 @@ public class ModMenuList extends GuiComponent {
     }
 
     public int getHeightInPixels() {
-        return this.pixelHeight;
+        return rowOffsets[entries.size()];
     }
 
     @Override
@@ -97,40 +296,108 @@ public class ModMenuList extends GuiComponent {
         realInit();
     }
 
-    private void addElementsToList(
-            List<ModMenuListElement> listToAdd, List<ModMenuListElement> currentLevel, int indent) {
-        for (ModMenuListElement elem : currentLevel) {
-            elem.setIndentLevel(indent);
-            listToAdd.add(elem);
-            if (elem.childrenOpen && !elem.children.isEmpty()) {
-                addElementsToList(listToAdd, elem.children, indent + 1);
+    void realInit() {
+        int[] window = getVisibleWindow();
+        bindRows(window[0], window[1]);
+    }
+
+    /**
+     * Rebinds the row pool to the rows between {@code first} (inclusive) and {@code last} (exclusive). Rows that stay
+     * in the window at the same offset are left alone, only rows entering or leaving it are added or removed.
+     */
+    private void bindRows(int first, int last) {
+        firstBoundRow = first;
+        lastBoundRow = last;
+
+        // rows that stay inside the window keep their entry, the others are reused for the rows that came into it
+        ModMenuListElement[] window = new ModMenuListElement[last - first];
+        List<ModMenuListElement> unused = new ArrayList<>();
+        for (ModMenuListElement row : rowPool) {
+            if (row.boundRow >= first && row.boundRow < last && window[row.boundRow - first] == null) {
+                window[row.boundRow - first] = row;
+            } else {
+                unused.add(row);
             }
         }
-    }
 
-    void realInit() {
-        this.clear();
+        for (ModMenuListElement row : unused) {
+            detach(row);
+            row.unbind();
+        }
 
-        List<ModMenuListElement> elementsToRender = new ArrayList<>();
-        addElementsToList(elementsToRender, this.modMenuListElements, 0);
+        for (int i = 0; i < window.length; i++) {
+            if (window[i] == null) {
+                if (unused.isEmpty()) {
+                    window[i] = new ModMenuListElement(this);
+                    rowPool.add(window[i]);
+                } else {
+                    window[i] = unused.remove(unused.size() - 1);
+                }
+            }
 
-        float yPos = pixelsToRelativeY(10.0F);
+            ModMenuListElement row = window[i];
+            Entry entry = entries.get(first + i);
+            if (row.entry != entry || !row.isLaidOutAt(rowOffsets[first + i], getHeightInPixels())) {
+                detach(row);
+                row.bind(first + i, entry);
+                addListElement(row);
+            } else {
+                row.bind(first + i, entry);
+            }
+        }
+    }
 
-        for (ModMenuListElement elem : elementsToRender) {
-            yPos = this.addListElement(elem, yPos);
-            yPos += pixelsToRelativeY(ELEMENT_PADDING);
+    private void detach(ModMenuListElement row) {
+        if (row.attached) {
+            removeComponent(row);
+            row.attached = false;
         }
     }
 
-    private float addListElement(ModMenuListElement elem, float yPos) {
-        float indentPixels = elem.indentLevel * 20.0f;
+    private void addListElement(ModMenuListElement elem) {
+        float indentPixels = elem.entry.indentLevel() * 20.0f;
         float xPad = pixelsToRelativeX(10.0F + indentPixels);
         float rightPad = pixelsToRelativeX(20.0F);
 
-        float yScale = pixelsToRelativeY(elem.getHeightInPixels());
+        float yPos = pixelsToRelativeY(rowOffsets[elem.boundRow]);
+        float yScale = pixelsToRelativeY(ModMenuListElement.getHeightInPixels(elem.entry));
 
         addComponent(elem, xPad, yPos, 1.0F - (rightPad + xPad), yScale);
-        return yPos + yScale;
+        // positions are relative to the height of the list, so a row has to be laid out again once that changes
+        elem.attached = true;
+        elem.layoutOffset = rowOffsets[elem.boundRow];
+        elem.layoutListHeight = getHeightInPixels();
+    }
+
+    /**
+     * @return The first (inclusive) and last (exclusive) row that should currently exist as a component.
+     */
+    private int[] getVisibleWindow() {
+        // until the list has been laid out, only bind what fits into the viewport when scrolled to the top
+        int top = 0;
+        int bottom = (int) Math.max(0, listUi.getPixelHeight());
+
+        Vector2f position = getPosition();
+        Vector2f scale = getScale();
+        Vector2f viewportPosition = listUi.getPosition();
+        Vector2f viewportScale = listUi.getScale();
+        if (position != null && viewportPosition != null && scale.y > 0) {
+            top = (int) ((viewportPosition.y - position.y) / scale.y * getHeightInPixels());
+            bottom = top + (int) Math.ceil(viewportScale.y / scale.y * getHeightInPixels());
+        }
+
+        int prefetchRows = Math.max(0, Config.instance().iconPrefetchRows);
+        int first = Math.max(0, getRowAt(top) - prefetchRows);
+        int last = Math.min(entries.size(), getRowAt(bottom) + 1 + prefetchRows);
+        return new int[] {first, Math.max(first, last)};
+    }
+
+    /**
+     * @return The index of the row at the given offset in pixels, found through a binary search over the offsets.
+     */
+    private int getRowAt(int offset) {
+        int index = Arrays.binarySearch(rowOffsets, 0, entries.size(), offset);
+        return Math.max(0, index >= 0 ? index : -index - 2);
     }
 
     @Override
@@ -138,114 +405,126 @@ public class ModMenuList extends GuiComponent {
 
     @Override
     protected void updateSelf() {
-        if (this.infoUi.getCurrentMod() == null) {
+        IconTextures.processUploads();
+
+        // update checks may finish while the menu is open
+        if (!facetFilter.isEmpty() && facetModificationCount != ModFacetIndex.get().getModificationCount()) {
+            applyFilters();
+        }
+
+        int[] window = getVisibleWindow();
+        if (window[0] != firstBoundRow || window[1] != lastBoundRow) {
+            bindRows(window[0], window[1]);
+        }
+
+        if (this.infoUi.getCurrentMod() == null && !entries.isEmpty()) {
             // if I set the selected mod in the init function, the icon doesn't work, but here it does???
-            setSelectedMod(this.modMenuListElements.get(0));
+            setSelectedMod(entries.get(0).mod());
         }
     }
 
     @Override
     protected void getGuiTextures(GuiRenderData var1) {}
 
+    /**
+     * One row of the flattened list.
+     */
+    record Entry(Mod mod, int indentLevel) {}
+
     public static class ModMenuListElement extends GuiClickable {
         private static final float MOD_BADGE_PADDING = 0.02f;
-        private static final int ICON_SIZE = 64;
+        static final int ICON_SIZE = 64;
 
         private static final float ICON_BUTTON_SCALE = 0.95f;
+        private static final float CHILDREN_BUTTON_SCALE = 0.4f;
         private static final int ICON_BUTTON_SIZE = (int) (ICON_SIZE * ICON_BUTTON_SCALE);
 
-        private static final Texture CONFIGURE_TEXTURE = ModMenuUtil.createTexture(
-                ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/configure.png", ICON_BUTTON_SIZE),
-                ICON_BUTTON_SIZE,
-                ICON_BUTTON_SIZE,
-                null);
-        private static final Texture CONFIGURE_HIGHLIGHT_TEXTURE = ModMenuUtil.createTexture(
-                ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER,
-                        "assets/" + ModMenu.MOD_ID + "/configure_highlight.png",
-                        ICON_BUTTON_SIZE),
-                ICON_BUTTON_SIZE,
-                ICON_BUTTON_SIZE,
-                null);
-
-        private static final Texture OPEN_PARENT_TEXTURE = ModMenuUtil.createTexture(
-                ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/open_parent.png", ICON_BUTTON_SIZE),
-                ICON_BUTTON_SIZE,
-                ICON_BUTTON_SIZE,
-                null);
-        private static final Texture OPEN_PARENT_HIGHLIGHT_TEXTURE = ModMenuUtil.createTexture(
-                ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER,
-                        "assets/" + ModMenu.MOD_ID + "/open_parent_highlight.png",
-                        ICON_BUTTON_SIZE),
-                ICON_BUTTON_SIZE,
-                ICON_BUTTON_SIZE,
-                null);
+        private static final Texture CONFIGURE_TEXTURE =
+                IconTextures.getBuiltin("assets/" + ModMenu.MOD_ID + "/configure.png", ICON_BUTTON_SIZE);
+        private static final Texture CONFIGURE_HIGHLIGHT_TEXTURE =
+                IconTextures.getBuiltin("assets/" + ModMenu.MOD_ID + "/configure_highlight.png", ICON_BUTTON_SIZE);
+
+        private static final Texture OPEN_PARENT_TEXTURE =
+                IconTextures.getBuiltin("assets/" + ModMenu.MOD_ID + "/open_parent.png", ICON_BUTTON_SIZE);
+        private static final Texture OPEN_PARENT_HIGHLIGHT_TEXTURE =
+                IconTextures.getBuiltin("assets/" + ModMenu.MOD_ID + "/open_parent_highlight.png", ICON_BUTTON_SIZE);
 
         private final ModMenuList parent;
         private final GuiTexture background;
-        private final Mod mod;
-        private final List<ModBadge> badges;
-        private final ModIconButton iconButton;
-
-        private final List<ModMenuListElement> children;
-        private boolean childrenOpen = false;
-
-        private GuiImage icon;
-
-        private int indentLevel = 0;
-
-        public ModMenuListElement(ModMenuList parent, Mod mod) {
-            List<ModMenuListElement> actualChildren = List.of();
-
-            this.mod = mod;
+        private final List<ModBadge> badges = new ArrayList<>();
+        private final ModIconButton configureButton;
+        private final ModIconButton childrenButton;
+        private final ModIconImage icon;
+
+        private Entry entry;
+        private Mod mod;
+        private int boundRow = -1;
+        private boolean configurable;
+        private boolean expandable;
+
+        private boolean attached;
+        private int layoutOffset;
+        private int layoutListHeight;
+
+        private IconTextures.IconKey iconKey;
+        private boolean iconRequested = false;
+        private int[] clippingBounds;
+
+        public ModMenuListElement(ModMenuList parent) {
             this.parent = parent;
 
             this.background = new GuiTexture(GuiRepository.BLOCK);
             this.background.setOverrideColour(
                     ColourPalette.DARK_GREY.duplicate().scale(1.3F));
 
-            this.badges = mod.getBadges().stream()
-                    .map(badge -> new ModBadge(badge.getColor(), I18n.translate("modmenu.badge." + badge.getId())))
-                    .toList();
-
-            List<String> childrenIds = ModMenu.MOD_CHILDREN.getOrDefault(mod.getId(), List.of());
-            /* // Incredibly buggy for seemingly no reason??
-            if (!childrenIds.isEmpty()) {
-                this.iconButton = new ModIconButton(OPEN_PARENT_TEXTURE, OPEN_PARENT_HIGHLIGHT_TEXTURE);
-                this.iconButton.addListener((event) -> {
-                    if (event.isLeftClick()) {
-                        childrenOpen = !childrenOpen;
-                        parent.recalculateHeight();
-                        parent.realInit();
-                        parent.listUi.realInit();
-                    }
-                });
-
-                actualChildren = childrenIds.stream().map(id -> new ModMenuListElement(parent, ModMenu.MODS.get(id))).toList();
-            } else */ if (mod.getConfigFactory() != null) {
-                this.iconButton = new ModIconButton(CONFIGURE_TEXTURE, CONFIGURE_HIGHLIGHT_TEXTURE);
-                this.iconButton.addListener((event) -> {
-                    if (event.isLeftClick()) {
-                        ModConfigPanelFactory configPanelFactory = mod.getConfigFactory();
-                        if (configPanelFactory == null) return;
-
-                        parent.gameMenu.setNewTertiaryScreen(configPanelFactory.create(parent.gameMenu));
-                    }
-                });
+            this.configureButton = new ModIconButton(CONFIGURE_TEXTURE, CONFIGURE_HIGHLIGHT_TEXTURE);
+            this.configureButton.addListener((event) -> {
+                if (event.isLeftClick()) {
+                    ModConfigPanelFactory configPanelFactory = mod.getConfigFactory();
+                    if (configPanelFactory == null) return;
+
+                    parent.gameMenu.setNewTertiaryScreen(configPanelFactory.create(parent.gameMenu));
+                }
+            });
+
+            this.childrenButton = new ModIconButton(OPEN_PARENT_TEXTURE, OPEN_PARENT_HIGHLIGHT_TEXTURE);
+            this.childrenButton.addListener((event) -> {
+                if (event.isLeftClick() && boundRow >= 0) {
+                    parent.toggleChildren(boundRow);
+                }
+            });
+
+            this.icon = new ModIconImage(IconTextures.getUnknownIcon(ICON_SIZE));
+        }
+
+        /**
+         * Points this row at another entry. Takes effect once the row is (re-)added to the list.
+         */
+        void bind(int row, Entry entry) {
+            this.boundRow = row;
+            if (this.entry == entry) return;
+
+            releaseIcon();
+            this.entry = entry;
+            this.mod = entry.mod();
+            this.iconKey = createIconKey(mod);
+            this.configurable = mod.mayHaveConfigScreen();
+            this.expandable = parent.hasChildren(mod);
+
+            if (mod == parent.selectedMod) {
+                select();
             } else {
-                iconButton = null;
+                unselect();
             }
+        }
 
-            this.children = actualChildren;
-
-            loadIcon();
+        void unbind() {
+            boundRow = -1;
+            releaseIcon();
         }
 
-        public void setIndentLevel(int indentLevel) {
-            this.indentLevel = indentLevel;
+        boolean isLaidOutAt(int offset, int listHeight) {
+            return attached && layoutOffset == offset && layoutListHeight == listHeight;
         }
 
         public Mod getMod() {
@@ -276,34 +555,50 @@ public class ModMenuList extends GuiComponent {
             }
         }
 
-        private void loadIcon() {
-            ByteBuffer buf = mod.getIconBuffer(ICON_SIZE);
-
-            if (buf == null) {
-                buf = ModMenuUtil.loadPng(
-                        ModMenu.MOD_MENU_CONTAINER, "assets/" + ModMenu.MOD_ID + "/unknown_icon.png", ICON_SIZE);
-            }
+        static IconTextures.IconKey createIconKey(Mod mod) {
+            Mod.IconSource source = mod.getIconSource(ICON_SIZE);
+            if (source == null) return null;
 
             CustomValue.CvObject customValue = Optional.ofNullable(
                             mod.getContainer().getMetadata().getCustomValue(ModMenu.MOD_ID))
                     .map(CustomValue::getAsObject)
                     .orElse(null);
+            boolean pixelPerfect = !mod.getId().equals("equilinox")
+                    && ModMenuUtil.getBoolean("pixel-perfect-icon", customValue).orElse(true);
 
-            if (buf != null) {
-                icon = new GuiImage(ModMenuUtil.createTexture(buf, ICON_SIZE, ICON_SIZE, (builder) -> {
-                    if (!mod.getId().equals("equilinox")
-                            && ModMenuUtil.getBoolean("pixel-perfect-icon", customValue)
-                                    .orElse(true))
-                        builder.noFiltering().nearestFiltering().clampEdges();
-                }));
+            return new IconTextures.IconKey(source.container(), source.file(), ICON_SIZE, pixelPerfect);
+        }
+
+        private void requestIcon() {
+            if (iconRequested || iconKey == null) return;
+
+            iconRequested = true;
+            Texture texture = IconTextures.request(iconKey, this::onIconLoaded);
+            if (texture != null) {
+                onIconLoaded(texture);
             }
         }
 
+        private void releaseIcon() {
+            if (!iconRequested) return;
+
+            iconRequested = false;
+            icon.setTexture(IconTextures.getUnknownIcon(ICON_SIZE));
+            IconTextures.release(iconKey);
+        }
+
+        private void onIconLoaded(Texture texture) {
+            // the row may have been rebound to another mod while the icon was decoding
+            if (!iconRequested) return;
+
+            icon.setTexture(texture);
+        }
+
         @Override
         public void remove() {
-            if (icon != null) {
-                icon.getTexture().getTexture().delete();
-            }
+            // also called when the whole list is removed, in which case the row has to be added again
+            attached = false;
+            releaseIcon();
 
             super.remove();
         }
@@ -315,32 +610,52 @@ public class ModMenuList extends GuiComponent {
             float yStart = 2.0F / getPixelHeight();
             float yScale = 1.0F - 2.0F * yStart;
             addComponent(icon, 2.0F / getPixelWidth(), yStart, getRelativeWidthCoords(yScale), yScale);
-            if (iconButton != null) {
+            if (configurable) {
                 addComponent(
-                        iconButton,
+                        configureButton,
                         2.0F / getPixelWidth() + (getRelativeWidthCoords(yScale) * (1 - ICON_BUTTON_SCALE)) / 2.0f,
                         yStart + (yScale * (1 - ICON_BUTTON_SCALE)) / 2.0f,
                         getRelativeWidthCoords(yScale) * ICON_BUTTON_SCALE,
                         yScale * ICON_BUTTON_SCALE);
             }
+            if (expandable) {
+                // bottom right corner, so it doesn't cover the configure button on the icon
+                float childrenButtonHeight = yScale * CHILDREN_BUTTON_SCALE;
+                float childrenButtonWidth = getRelativeWidthCoords(childrenButtonHeight);
+                addComponent(
+                        childrenButton,
+                        1.0F - childrenButtonWidth - pixelsToRelativeX(4.0F),
+                        yStart + yScale - childrenButtonHeight,
+                        childrenButtonWidth,
+                        childrenButtonHeight);
+            }
             float xStart = getRelativeWidthCoords(1.0F) + pixelsToRelativeX(5.0F);
             float yPos = pixelsToRelativeY(2);
             float gap = pixelsToRelativeY(EvolveOverviewUi.TEXT_HEIGHT);
             this.addName(xStart - pixelsToRelativeX(5), yPos);
 
+            badges.clear();
             float badgeWidth = 0.15f;
             float badgeXPos = 1 - badgeWidth - MOD_BADGE_PADDING;
-            for (ModBadge modBadge : badges) {
+            for (ModBadgeType badgeType : mod.getBadges()) {
+                ModBadge modBadge =
+                        new ModBadge(badgeType.getColor(), I18n.translate("modmenu.badge." + badgeType.getId()));
+                badges.add(modBadge);
                 addComponent(modBadge, badgeXPos, yPos, badgeWidth, 0.25f);
 
                 badgeXPos -= badgeWidth + MOD_BADGE_PADDING;
             }
+            if (clippingBounds != null) {
+                setTextureClippingBounds(clippingBounds);
+            }
 
             yPos += gap;
             this.addDescription(xStart, yPos);
+
+            requestIcon();
         }
 
-        public int getHeightInPixels() {
+        static int getHeightInPixels(Entry entry) {
             return 70 + 10;
         }
 
@@ -368,14 +683,14 @@ public class ModMenuList extends GuiComponent {
                     && mouse.getY() >= pos.y
                     && mouse.getX() <= pos.x + scale.x
                     && mouse.getY() <= pos.y + scale.y) {
-                parent.setSelectedMod(this);
+                parent.setSelectedMod(mod);
             }
 
-            if (iconButton != null) {
+            if (configurable) {
                 if (this.isMouseOver()) {
-                    this.iconButton.setVisible();
+                    this.configureButton.setVisible();
                 } else {
-                    this.iconButton.setInvisible();
+                    this.configureButton.setInvisible();
                 }
             }
         }
@@ -387,6 +702,7 @@ public class ModMenuList extends GuiComponent {
 
         @Override
         protected void setTextureClippingBounds(int[] bounds) {
+            clippingBounds = bounds;
             background.setClippingBounds(bounds);
 
             // why doesn't the game expose literally any way to do this normally?????
@@ -1,5 +1,6 @@
 package de.rhm176.modmenu.ui;
 
+import de.rhm176.modmenu.util.ModFacetIndex;
 import gameMenu.GameMenuGui;
 import mainGuis.ColourPalette;
 import org.jetbrains.annotations.ApiStatus;
@@ -21,6 +22,14 @@ public class ModMenuListUi extends GuiScrollPanel {
         realInit();
     }
 
+    public void setSearchQuery(String query) {
+        listUi.setSearchQuery(query);
+    }
+
+    public void setFacetFilter(ModFacetIndex.Filter filter) {
+        listUi.setFacetFilter(filter);
+    }
+
     void realInit() {
         setContents(this.listUi, this.listUi.getHeightInPixels() / this.getPixelHeight());
     }
@@ -5,11 +5,15 @@ import de.rhm176.modmenu.Mod;
 import de.rhm176.modmenu.ModMenu;
 import de.rhm176.modmenu.api.update.UpdateInfo;
 import de.rhm176.modmenu.util.LogUtil;
+import de.rhm176.modmenu.util.MixinProfiler;
+import de.rhm176.modmenu.util.ModContentSize;
 import fontRendering.Text;
 import java.awt.*;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.SortedMap;
@@ -26,6 +30,7 @@ import userInterfaces.GuiTextButton;
 public class ModMenuModInfoLowerUi extends GuiScrollPanel {
     private final float ELEMENT_PADDING = 0.05f;
     private final Mod mod;
+    private boolean measuringContentSize;
 
     public ModMenuModInfoLowerUi(Mod mod) {
         super(ColourPalette.DARK_GREY, 0.8F);
@@ -63,6 +68,12 @@ public class ModMenuModInfoLowerUi extends GuiScrollPanel {
             addText(versionText, 0.03f, currentY, 0.98f);
             currentY += getRelativeHeightCoords(versionText.getHeight());
 
+            if (mod.isUpdateInfoStale()) {
+                Text staleText = newText(I18n.translate("modmenu.update.stale"), ColourPalette.LIGHT_GREY);
+                addText(staleText, 0.03f, currentY, 0.98f);
+                currentY += getRelativeHeightCoords(staleText.getHeight());
+            }
+
             currentY += ELEMENT_PADDING / 2;
 
             Text downloadButtonText = newText(I18n.translate("modmenu.update.download"), ColourPalette.BLUE_TEXT);
@@ -134,6 +145,49 @@ public class ModMenuModInfoLowerUi extends GuiScrollPanel {
 
             currentY += ELEMENT_PADDING;
         }
+
+        ModContentSize contentSize = ModContentSize.get(mod);
+        measuringContentSize = contentSize == null;
+        List<String> sizes = contentSize != null
+                ? List.of(
+                        I18n.translate("modmenu.contents.classes", contentSize.classCount()),
+                        I18n.translate("modmenu.contents.size", contentSize.contentBytes() / 1024.0))
+                : List.of(I18n.translate("modmenu.contents.measuring"));
+        currentY = addSection(I18n.translate("modmenu.contents"), sizes, currentY);
+
+        List<String> costs = new ArrayList<>();
+        long integrationNanos = mod.getCapabilityResolveNanos();
+        if (integrationNanos >= 0) {
+            costs.add(I18n.translate("modmenu.performance.integration", integrationNanos / 1_000_000.0));
+        }
+        if (MixinProfiler.isInstalled()) {
+            costs.add(I18n.translate(
+                    "modmenu.performance.mixins", MixinProfiler.getModNanos(mod.getId()) / 1_000_000.0));
+        }
+        if (!costs.isEmpty()) {
+            addSection(I18n.translate("modmenu.performance"), costs, currentY);
+        }
+    }
+
+    /**
+     * @return Whether the content size of the mod was still being measured when this panel was built.
+     */
+    boolean isMeasuringContentSize() {
+        return measuringContentSize;
+    }
+
+    private float addSection(String title, List<String> lines, float currentY) {
+        Text titleText = newText(title, ColourPalette.LIGHT_GREY);
+        addText(titleText, 0.01f, currentY, 0.99f);
+        currentY += getRelativeHeightCoords(titleText.getHeight());
+
+        for (String s : lines) {
+            Text lineText = newText(s, ColourPalette.BRIGHT_GREY);
+            addText(lineText, 0.03f, currentY, 0.98f);
+            currentY += getRelativeHeightCoords(lineText.getHeight());
+        }
+
+        return currentY + ELEMENT_PADDING;
     }
 
     private static GuiTextButton createLinkButton(String link, Text linkText) {
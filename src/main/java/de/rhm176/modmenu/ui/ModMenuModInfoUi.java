@@ -1,7 +1,9 @@
 package de.rhm176.modmenu.ui;
 
 import de.rhm176.api.lang.I18n;
+import de.rhm176.modmenu.Mod;
 import de.rhm176.modmenu.util.LogUtil;
+import de.rhm176.modmenu.util.ModContentSize;
 import fontRendering.Text;
 import java.awt.*;
 import java.io.IOException;
@@ -14,8 +16,7 @@ import mainGuis.EquilinoxGuis;
 import mainGuis.GuiRepository;
 import mainGuis.UiSettings;
 import org.jetbrains.annotations.ApiStatus;
-import org.lwjgl.util.vector.Vector2f;
-import userInterfaces.GuiImage;
+import textures.Texture;
 import userInterfaces.GuiPanel;
 import userInterfaces.Listener;
 
@@ -24,39 +25,46 @@ public class ModMenuModInfoUi extends GuiPanel {
     private static final float BUTTON_PADDING = 0.01f;
     private static final float BUTTON_HEIGHT = 0.05f;
     public static final float PANEL_EDGE_PADDING = 0.01f;
+    /**
+     * The size the icon is shown at, the same as in the list.
+     */
+    private static final float ICON_PIXELS = 76.0f;
 
-    private ModMenuList.ModMenuListElement currentMod;
+    private Mod currentMod;
+    private ModMenuModInfoLowerUi lowerUi;
+    private ModIconImage icon;
+    private IconTextures.IconKey iconKey;
 
     public ModMenuModInfoUi() {
         super(ColourPalette.DARK_GREY, 0.7F);
     }
 
-    public void showModInfo(ModMenuList.ModMenuListElement elem) {
+    public void showModInfo(Mod mod) {
         clear();
+        releaseIcon();
 
-        Vector2f iconScale = elem.getIcon().getScale();
-        float relScaleY = iconScale.y / getScale().y;
-        float relScaleX = iconScale.x / getScale().x;
+        float relScaleY = pixelsToRelativeY(ICON_PIXELS);
+        float relScaleX = pixelsToRelativeX(ICON_PIXELS);
 
         addComponent(new GuiPanel(ColourPalette.DARK_GREY, 0.8F), 0, 0, 1, relScaleY);
-        addComponent(new GuiImage(elem.getIcon().getTexture()), 0.0f, 0.0f, relScaleX, relScaleY);
+        addComponent(requestIcon(mod), 0.0f, 0.0f, relScaleX, relScaleY);
 
         float textPosX = relScaleX + PANEL_EDGE_PADDING;
 
-        Text name = Text.newText(elem.getMod().getName())
+        Text name = Text.newText(mod.getName())
                 .setFontSize(UiSettings.NORM_FONT)
                 .create();
         name.setColour(ColourPalette.WHITE);
         addText(name, textPosX, 0, 1.0F);
 
-        String versionStr = elem.getMod().getVersion();
+        String versionStr = mod.getVersion();
         Text version = Text.newText(versionStr.startsWith("v") ? versionStr : ("v" + versionStr))
                 .setFontSize(UiSettings.NORM_FONT)
                 .create();
         version.setColour(ColourPalette.LIGHT_GREY);
         addText(version, textPosX, name.getRelativeY() + getRelativeHeightCoords(name.getHeight()), 1.0F);
 
-        List<String> names = elem.getMod().getAuthors();
+        List<String> names = mod.getAuthors();
         float currentY = version.getRelativeY() + getRelativeHeightCoords(version.getHeight());
         if (!names.isEmpty()) {
             String authorString;
@@ -79,11 +87,11 @@ public class ModMenuModInfoUi extends GuiPanel {
         addButton(
                 I18n.translate("modmenu.website"),
                 (button) -> {
-                    if (elem.getMod().getWebsite() == null) button.block();
+                    if (mod.getWebsite() == null) button.block();
                 },
                 (on) -> {
                     try {
-                        Desktop.getDesktop().browse(new URI(elem.getMod().getWebsite()));
+                        Desktop.getDesktop().browse(new URI(mod.getWebsite()));
                     } catch (IOException | URISyntaxException e) {
                         EquilinoxGuis.notify("[Mod Menu]", "Failed to open website.", GuiRepository.INFO, null);
                         LogUtil.err("Could not open website:", e);
@@ -95,13 +103,13 @@ public class ModMenuModInfoUi extends GuiPanel {
         addButton(
                 I18n.translate("modmenu.issues"),
                 (button) -> {
-                    if (elem.getMod().getId().equals("java")
-                            || elem.getMod().getId().equals("equilinox")
-                            || elem.getMod().getIssueTracker() == null) button.block();
+                    if (mod.getId().equals("java")
+                            || mod.getId().equals("equilinox")
+                            || mod.getIssueTracker() == null) button.block();
                 },
                 (on) -> {
                     try {
-                        Desktop.getDesktop().browse(new URI(elem.getMod().getIssueTracker()));
+                        Desktop.getDesktop().browse(new URI(mod.getIssueTracker()));
                     } catch (IOException | URISyntaxException e) {
                         EquilinoxGuis.notify("[Mod Menu]", "Failed to open issue tracker.", GuiRepository.INFO, null);
                         LogUtil.err("Could not open issue tracker:", e);
@@ -111,15 +119,63 @@ public class ModMenuModInfoUi extends GuiPanel {
                 buttonY,
                 buttonWidth);
 
-        addComponent(new ModMenuModInfoLowerUi(elem.getMod()), 0, relScaleY + 0.02f, 1, 1f - (relScaleY + 0.02f));
+        lowerUi = new ModMenuModInfoLowerUi(mod);
+        addComponent(lowerUi, 0, relScaleY + 0.02f, 1, 1f - (relScaleY + 0.02f));
 
-        currentMod = elem;
+        currentMod = mod;
     }
 
-    public ModMenuList.ModMenuListElement getCurrentMod() {
+    @Override
+    protected void updateSelf() {
+        super.updateSelf();
+
+        // the content size is measured in the background, the placeholder is replaced once it is done
+        if (lowerUi != null && lowerUi.isMeasuringContentSize() && ModContentSize.get(currentMod) != null) {
+            showModInfo(currentMod);
+        }
+    }
+
+    public Mod getCurrentMod() {
         return currentMod;
     }
 
+    /**
+     * Holds a reference to the icon for as long as it is shown, so it can't be deleted while idle textures are
+     * trimmed.
+     */
+    private ModIconImage requestIcon(Mod mod) {
+        ModIconImage image = new ModIconImage(IconTextures.getUnknownIcon(ModMenuList.ModMenuListElement.ICON_SIZE));
+        icon = image;
+        iconKey = ModMenuList.ModMenuListElement.createIconKey(mod);
+
+        if (iconKey != null) {
+            Texture texture = IconTextures.request(iconKey, loaded -> {
+                // another mod may have been selected while the icon was decoding
+                if (icon == image) image.setTexture(loaded);
+            });
+            if (texture != null) {
+                image.setTexture(texture);
+            }
+        }
+
+        return image;
+    }
+
+    private void releaseIcon() {
+        if (iconKey != null) {
+            IconTextures.release(iconKey);
+        }
+        icon = null;
+        iconKey = null;
+    }
+
+    @Override
+    public void remove() {
+        releaseIcon();
+
+        super.remove();
+    }
+
     private void addButton(
             String text,
             Consumer<ModMenuGui.ModMenuButton> setupButtonConsumer,
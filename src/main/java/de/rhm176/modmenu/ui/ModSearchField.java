@@ -0,0 +1,95 @@
+package de.rhm176.modmenu.ui;
+
+import fontRendering.Text;
+import java.util.function.Consumer;
+import mainGuis.ColourPalette;
+import mainGuis.UiSettings;
+import org.jetbrains.annotations.ApiStatus;
+import org.lwjgl.input.Keyboard;
+import toolbox.MyKeyboard;
+import toolbox.MyMouse;
+import userInterfaces.GuiPanel;
+
+/**
+ * A single line text field. It gets focused by clicking it and reads the characters typed each frame from the
+ * game's keyboard while it is focused.
+ */
+@ApiStatus.Internal
+public class ModSearchField extends GuiPanel {
+    private static final int MAX_LENGTH = 64;
+
+    private final String placeholder;
+    private final Consumer<String> onChange;
+    private final StringBuilder query = new StringBuilder();
+    private boolean focused = false;
+
+    public ModSearchField(String placeholder, Consumer<String> onChange) {
+        super(ColourPalette.DARK_GREY, 0.7F);
+
+        this.placeholder = placeholder;
+        this.onChange = onChange;
+    }
+
+    public String getQuery() {
+        return query.toString();
+    }
+
+    @Override
+    protected void init() {
+        super.init();
+        updateText();
+    }
+
+    private void updateText() {
+        clear();
+
+        Text text;
+        if (query.isEmpty() && !focused) {
+            text = Text.newText(placeholder).setFontSize(UiSettings.NORM_FONT).create();
+            text.setColour(ColourPalette.LIGHT_GREY);
+        } else {
+            text = Text.newText(query + (focused ? "_" : ""))
+                    .setFontSize(UiSettings.NORM_FONT)
+                    .create();
+            text.setColour(ColourPalette.WHITE);
+        }
+        addText(text, pixelsToRelativeX(5), 0.1f, 1.0f);
+    }
+
+    @Override
+    protected void updateSelf() {
+        super.updateSelf();
+
+        MyMouse mouse = MyMouse.getActiveMouse();
+        if (mouse.isLeftClick() && focused != isMouseOver()) {
+            focused = !focused;
+            updateText();
+        }
+        if (!focused) return;
+
+        // the game reads LWJGL's event queue itself, so keys go through its keyboard instead of being taken from it
+        MyKeyboard keyboard = MyKeyboard.getKeyboard();
+        if (keyboard.keyPressEvent(Keyboard.KEY_RETURN) || keyboard.keyPressEvent(Keyboard.KEY_ESCAPE)) {
+            focused = false;
+            updateText();
+            return;
+        }
+
+        boolean changed = false;
+        if (keyboard.keyPressEvent(Keyboard.KEY_BACK) && !query.isEmpty()) {
+            query.setLength(query.length() - 1);
+            changed = true;
+        }
+        for (char character : keyboard.getCharsThisFrame()) {
+            if (character >= ' ' && character != 127 && query.length() < MAX_LENGTH) {
+                query.append(character);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            updateText();
+            onChange.accept(query.toString());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package de.rhm176.modmenu.util;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A pool of direct buffers for decoding and scaling icons.
+ * <p>
+ * Direct memory is only given back once the GC happens to collect the owning buffer, so allocating one per
+ * icon lets large packs run into {@code OutOfMemoryError: Direct buffer memory} long before the heap is full.
+ * Buffers handed out here come in power of two size classes and go back into the pool through
+ * {@link #release(ByteBuffer)} as soon as their pixels have been uploaded. Only up to
+ * {@link #MAX_RETAINED_BYTES} of free buffers are kept, anything beyond that is left to the GC.
+ */
+@ApiStatus.Internal
+public final class DirectBufferPool {
+    private static final int MIN_CLASS_SHIFT = 12; // 4 KiB
+    private static final int MAX_CLASS_SHIFT = 24; // 16 MiB
+    private static final long MAX_RETAINED_BYTES = 8L * 1024 * 1024;
+
+    private static final List<ArrayDeque<ByteBuffer>> FREE = new ArrayList<>();
+    private static final Set<ByteBuffer> IN_USE = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private static long retainedBytes;
+    private static long inUseBytes;
+    private static long highWaterMark;
+    private static long allocatedBytes;
+    private static long hits;
+    private static long misses;
+
+    static {
+        for (int shift = MIN_CLASS_SHIFT; shift <= MAX_CLASS_SHIFT; shift++) {
+            FREE.add(new ArrayDeque<>());
+        }
+    }
+
+    private DirectBufferPool() {}
+
+    /**
+     * Acquires a cleared direct buffer with its limit set to exactly {@code bytes}.
+     */
+    public static synchronized ByteBuffer acquire(int bytes) {
+        int sizeClass = getSizeClass(bytes);
+
+        ByteBuffer buffer = null;
+        if (sizeClass >= 0) {
+            buffer = FREE.get(sizeClass).pollFirst();
+        }
+
+        if (buffer != null) {
+            hits++;
+            retainedBytes -= buffer.capacity();
+        } else {
+            misses++;
+            buffer = ByteBuffer.allocateDirect(sizeClass >= 0 ? 1 << (sizeClass + MIN_CLASS_SHIFT) : bytes);
+            allocatedBytes += buffer.capacity();
+        }
+
+        IN_USE.add(buffer);
+        inUseBytes += buffer.capacity();
+        highWaterMark = Math.max(highWaterMark, inUseBytes);
+
+        buffer.clear().limit(bytes);
+        return buffer;
+    }
+
+    /**
+     * Returns a buffer to the pool. Buffers that weren't acquired from this pool (e.g. memory-mapped cache
+     * entries) are ignored, so callers don't have to keep track of where a buffer came from.
+     */
+    public static synchronized void release(ByteBuffer buffer) {
+        if (buffer == null || !IN_USE.remove(buffer)) return;
+
+        inUseBytes -= buffer.capacity();
+
+        int sizeClass = getSizeClass(buffer.capacity());
+        if (sizeClass >= 0 && retainedBytes + buffer.capacity() <= MAX_RETAINED_BYTES) {
+            FREE.get(sizeClass).addFirst(buffer);
+            retainedBytes += buffer.capacity();
+        }
+    }
+
+    public static synchronized Statistics getStatistics() {
+        return new Statistics(inUseBytes, highWaterMark, retainedBytes, allocatedBytes, hits, misses);
+    }
+
+    /**
+     * @return The index of the smallest size class that fits {@code bytes}, or -1 if it is too large to be pooled.
+     */
+    private static int getSizeClass(int bytes) {
+        int shift = Math.max(MIN_CLASS_SHIFT, 32 - Integer.numberOfLeadingZeros(Math.max(bytes, 1) - 1));
+        return shift <= MAX_CLASS_SHIFT ? shift - MIN_CLASS_SHIFT : -1;
+    }
+
+    public record Statistics(
+            long inUseBytes, long highWaterMark, long retainedBytes, long allocatedBytes, long hits, long misses) {
+        @Override
+        public String toString() {
+            return "%d KiB in use (peak %d KiB), %d KiB pooled, %d KiB allocated in total, %d hits / %d misses"
+                    .formatted(
+                            inUseBytes / 1024,
+                            highWaterMark / 1024,
+                            retainedBytes / 1024,
+                            allocatedBytes / 1024,
+                            hits,
+                            misses);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.ModMenuUtil;
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persistent cache of HTTP responses, keyed by URI.
+ * <p>
+ * Every entry stores the headers and body of the last successful response together with its {@code ETag} and
+ * {@code Last-Modified} validators and the time it was last confirmed by the server. {@link HttpUtil} serves fresh
+ * entries without a request and revalidates older ones with a conditional request.
+ */
+@ApiStatus.Internal
+public final class HttpCache {
+    private static final Path HTTP_DIR = ModMenuUtil.getCacheDir().resolve("http");
+    private static final int MAGIC = 0x4D4D4843; // "MMHC"
+    private static final int FORMAT_VERSION = 2;
+
+    private HttpCache() {}
+
+    /**
+     * @return The cached response for {@code uri}, or {@code null} if there is no valid entry or its body is larger
+     * than {@code maxBytes}.
+     */
+    public static @Nullable Entry read(URI uri, int maxBytes) {
+        Path path = getEntryPath(uri);
+        if (!Files.isRegularFile(path)) return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !in.readUTF().equals(uri.toString())) {
+                return null;
+            }
+
+            long validatedAt = in.readLong();
+            String etag = readNullable(in);
+            String lastModified = readNullable(in);
+
+            Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                if (valueCount < 0) return null;
+
+                String[] values = new String[valueCount];
+                for (int value = 0; value < values.length; value++) {
+                    values[value] = in.readUTF();
+                }
+                headers.put(name, List.of(values));
+            }
+
+            int length = in.readInt();
+            if (length > maxBytes) return null;
+
+            byte[] body = in.readNBytes(Math.max(0, length));
+            // e.g. the game was closed while an older version of the file was written
+            if (body.length != length) return null;
+
+            return new Entry(validatedAt, etag, lastModified, headers, body);
+        } catch (IOException e) {
+            LogUtil.err("Could not read cached response " + path.getFileName() + ":", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores a response. Failures are logged and otherwise ignored, the response just won't be cached.
+     */
+    public static void write(URI uri, Entry entry) {
+        Path path = getEntryPath(uri);
+
+        try {
+            Files.createDirectories(HTTP_DIR);
+
+            Path tmp = Files.createTempFile(HTTP_DIR, path.getFileName().toString(), ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                out.writeUTF(uri.toString());
+                out.writeLong(entry.validatedAt());
+                writeNullable(out, entry.etag());
+                writeNullable(out, entry.lastModified());
+                out.writeInt(entry.headers().size());
+                for (Map.Entry<String, List<String>> header : entry.headers().entrySet()) {
+                    out.writeUTF(header.getKey());
+                    out.writeInt(header.getValue().size());
+                    for (String value : header.getValue()) {
+                        out.writeUTF(value);
+                    }
+                }
+                out.writeInt(entry.body().length);
+                out.write(entry.body());
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LogUtil.err("Could not cache response " + path.getFileName() + ":", e);
+        }
+    }
+
+    private static @Nullable String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeNullable(DataOutputStream out, @Nullable String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) out.writeUTF(value);
+    }
+
+    private static Path getEntryPath(URI uri) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(uri.toString().getBytes(StandardCharsets.UTF_8));
+            return HTTP_DIR.resolve(HexFormat.of().formatHex(hash, 0, 16) + ".bin");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * @param validatedAt  When the server last sent or confirmed this body, in epoch milliseconds.
+     * @param headers      The headers of the response the body came with.
+     */
+    public record Entry(
+            long validatedAt,
+            @Nullable String etag,
+            @Nullable String lastModified,
+            Map<String, List<String>> headers,
+            byte[] body) {
+        public Entry withValidatedAt(long validatedAt) {
+            return new Entry(validatedAt, etag, lastModified, headers, body);
+        }
+    }
+}
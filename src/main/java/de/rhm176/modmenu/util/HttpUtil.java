@@ -1,28 +1,298 @@
 package de.rhm176.modmenu.util;
 
 import com.google.gson.JsonElement;
+import com.google.gson.JsonParseException;
 import com.google.gson.JsonParser;
+import de.rhm176.modmenu.config.Config;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+import javax.net.ssl.SSLSession;
 import org.jetbrains.annotations.ApiStatus;
 
+/**
+ * GET requests go through the {@link HttpCache}: responses younger than {@link Config#httpCacheTtlMinutes} are
+ * served from disk, older ones are revalidated with {@code If-None-Match}/{@code If-Modified-Since}. When the server
+ * can't be reached, rate limits us or fails, a cached response is served regardless of its age.
+ * <p>
+ * Concurrent requests for the same URI, e.g. from several mods checking the same repository for updates, are
+ * coalesced into one, and its result is reused for a short while after it completed.
+ */
 @ApiStatus.Internal
 public final class HttpUtil {
     private static final HttpClient CLIENT = HttpClient.newHttpClient();
 
+    private static final Map<URI, CompletableFuture<Fetched>> FETCHES = new ConcurrentHashMap<>();
+
+    /**
+     * How long a completed fetch is handed to further callers for the same URI before the URI is fetched again.
+     */
+    private static final long SHARE_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    /**
+     * The largest body read unless a caller asks for a smaller limit.
+     */
+    public static final int DEFAULT_MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * Fetches and parses a JSON document. Callers requesting the same URI at about the same time share the request
+     * and the parsing, but every caller gets its own copy of the document and may modify it.
+     */
     public static HttpResponse<JsonElement> httpGet(URI uri) throws IOException, InterruptedException {
-        return httpGet(
-                uri,
-                responseInfo -> HttpResponse.BodySubscribers.mapping(
-                        HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8), JsonParser::parseString));
+        Fetched fetched = fetchShared(uri, DEFAULT_MAX_BODY_BYTES);
+        return fetched.toResponse(fetched.json().deepCopy());
     }
 
     public static <T> HttpResponse<T> httpGet(URI uri, HttpResponse.BodyHandler<T> bodyHandler)
             throws IOException, InterruptedException {
-        return CLIENT.send(HttpRequest.newBuilder(uri).GET().build(), bodyHandler);
+        return httpGet(uri, bodyHandler, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * @param maxBytes The largest body that is accepted. Larger responses are rejected with an {@link IOException}
+     *                 as soon as their {@code Content-Length} is known, or once that many bytes have been read.
+     */
+    public static <T> HttpResponse<T> httpGet(URI uri, HttpResponse.BodyHandler<T> bodyHandler, int maxBytes)
+            throws IOException, InterruptedException {
+        Fetched fetched = fetchShared(uri, maxBytes);
+        return fetched.toResponse(decode(fetched.status(), fetched.headers(), fetched.body(), bodyHandler));
+    }
+
+    /**
+     * Joins a fetch of {@code uri} that is running or completed recently, or starts a new one.
+     */
+    private static Fetched fetchShared(URI uri, int maxBytes) throws IOException, InterruptedException {
+        // there are only a few URIs per update check, so pruning on every call keeps the map small enough
+        FETCHES.values().removeIf(HttpUtil::isExpired);
+
+        CompletableFuture<Fetched> own = new CompletableFuture<>();
+        CompletableFuture<Fetched> shared = FETCHES.compute(
+                uri, (key, existing) -> existing != null && !isExpired(existing) ? existing : own);
+
+        if (shared == own) {
+            try {
+                own.complete(fetch(uri, maxBytes));
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                // failures aren't shared with later callers
+                FETCHES.remove(uri, own);
+                own.completeExceptionally(e);
+                throw e;
+            }
+        }
+
+        try {
+            Fetched fetched = shared.get();
+            // the fetch may have been started by a caller with a larger limit
+            if (fetched.body().length > maxBytes) throw tooLarge(uri, maxBytes);
+
+            return fetched;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException("Shared request to %s failed.".formatted(uri), e.getCause());
+        }
+    }
+
+    private static boolean isExpired(CompletableFuture<Fetched> fetch) {
+        return fetch.isDone()
+                && (fetch.isCompletedExceptionally()
+                        || System.currentTimeMillis() - fetch.join().fetchedAt() > SHARE_MILLIS);
+    }
+
+    private static Fetched fetch(URI uri, int maxBytes) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+
+        HttpCache.Entry cached = HttpCache.read(uri, maxBytes);
+        if (cached != null) {
+            long ttl = TimeUnit.MINUTES.toMillis(Config.instance().httpCacheTtlMinutes);
+            if (System.currentTimeMillis() - cached.validatedAt() < ttl) {
+                return fromCache(request.build(), cached);
+            }
+
+            if (cached.etag() != null) request.header("If-None-Match", cached.etag());
+            if (cached.lastModified() != null) request.header("If-Modified-Since", cached.lastModified());
+        }
+
+        HttpResponse<InputStream> response;
+        try {
+            response = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException e) {
+            if (cached == null) throw e;
+
+            LogUtil.err("Could not reach %s, using the cached response.".formatted(uri));
+            return fromCache(request.build(), cached);
+        }
+        byte[] body = readBody(response, maxBytes);
+
+        int status = response.statusCode();
+        if (status == 304 && cached != null) {
+            HttpCache.write(uri, cached.withValidatedAt(System.currentTimeMillis()));
+            return fromCache(response.request(), cached);
+        }
+
+        if (status == 200) {
+            HttpCache.write(
+                    uri,
+                    new HttpCache.Entry(
+                            System.currentTimeMillis(),
+                            response.headers().firstValue("ETag").orElse(null),
+                            response.headers().firstValue("Last-Modified").orElse(null),
+                            response.headers().map(),
+                            body));
+        } else if (cached != null && (status == 403 || status == 429 || status >= 500)) {
+            LogUtil.err("%s responded with status code %d, using the cached response.".formatted(uri, status));
+            return fromCache(response.request(), cached);
+        }
+
+        return new Fetched(status, response.request(), response.headers(), body);
+    }
+
+    /**
+     * Reads at most {@code maxBytes} of the body, failing early if the server announces a larger one.
+     */
+    private static byte[] readBody(HttpResponse<InputStream> response, int maxBytes) throws IOException {
+        try (InputStream in = response.body()) {
+            long length = response.headers().firstValueAsLong("Content-Length").orElse(-1);
+            if (length > maxBytes) throw tooLarge(response.uri(), maxBytes);
+
+            byte[] body = in.readNBytes(maxBytes + 1);
+            if (body.length > maxBytes) throw tooLarge(response.uri(), maxBytes);
+
+            return body;
+        }
+    }
+
+    private static IOException tooLarge(URI uri, int maxBytes) {
+        return new IOException("The response from %s is larger than %d bytes.".formatted(uri, maxBytes));
+    }
+
+    /**
+     * @return The cached response with the headers it was originally sent with.
+     */
+    private static Fetched fromCache(HttpRequest request, HttpCache.Entry cached) {
+        return new Fetched(200, request, HttpHeaders.of(cached.headers(), (name, value) -> true), cached.body());
+    }
+
+    /**
+     * Runs a body that has already been read completely through {@code bodyHandler}.
+     */
+    private static <T> T decode(int status, HttpHeaders headers, byte[] body, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException {
+        HttpResponse.BodySubscriber<T> subscriber = bodyHandler.apply(new HttpResponse.ResponseInfo() {
+            @Override
+            public int statusCode() {
+                return status;
+            }
+
+            @Override
+            public HttpHeaders headers() {
+                return headers;
+            }
+
+            @Override
+            public HttpClient.Version version() {
+                return HttpClient.Version.HTTP_1_1;
+            }
+        });
+
+        subscriber.onSubscribe(new Flow.Subscription() {
+            @Override
+            public void request(long n) {}
+
+            @Override
+            public void cancel() {}
+        });
+        subscriber.onNext(List.of(ByteBuffer.wrap(body)));
+        subscriber.onComplete();
+
+        try {
+            return subscriber.getBody().toCompletableFuture().join();
+        } catch (CompletionException e) {
+            throw new IOException("Could not read the response body.", e.getCause());
+        }
+    }
+
+    /**
+     * A completed response whose body has been read completely.
+     */
+    private static final class Fetched {
+        private final int status;
+        private final HttpRequest request;
+        private final HttpHeaders headers;
+        private final byte[] body;
+        private final long fetchedAt = System.currentTimeMillis();
+
+        private JsonElement json;
+
+        private Fetched(int status, HttpRequest request, HttpHeaders headers, byte[] body) {
+            this.status = status;
+            this.request = request;
+            this.headers = headers;
+            this.body = body;
+        }
+
+        private int status() {
+            return status;
+        }
+
+        private HttpHeaders headers() {
+            return headers;
+        }
+
+        private byte[] body() {
+            return body;
+        }
+
+        private long fetchedAt() {
+            return fetchedAt;
+        }
+
+        private synchronized JsonElement json() throws IOException {
+            if (json == null) {
+                try {
+                    json = JsonParser.parseString(new String(body, StandardCharsets.UTF_8));
+                } catch (JsonParseException e) {
+                    throw new IOException("Could not parse the response body.", e);
+                }
+            }
+
+            return json;
+        }
+
+        private <T> HttpResponse<T> toResponse(T body) {
+            return new BufferedResponse<>(status, request, headers, body, request.uri());
+        }
+    }
+
+    private record BufferedResponse<T>(int statusCode, HttpRequest request, HttpHeaders headers, T body, URI uri)
+            implements HttpResponse<T> {
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return HttpClient.Version.HTTP_1_1;
+        }
     }
 }
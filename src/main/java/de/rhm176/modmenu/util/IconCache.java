@@ -0,0 +1,135 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.ModMenuUtil;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import net.fabricmc.loader.api.ModContainer;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Persistent cache of decoded and scaled icons.
+ * <p>
+ * Every entry stores the raw BGRA pixels of one icon at one size, together with the version of the mod that
+ * provides it and the size and modification time of the source PNG. Validating an entry therefore only needs the
+ * source's file attributes, never its contents. Entries are memory-mapped on read, so the returned buffer can be
+ * handed to {@link ModMenuUtil#createTexture} without copying. An entry whose version or source no longer matches
+ * is simply overwritten with the freshly decoded pixels.
+ */
+@ApiStatus.Internal
+public final class IconCache {
+    private static final Path ICON_DIR = ModMenuUtil.getCacheDir().resolve("icons");
+    private static final int MAGIC = 0x4D4D4943; // "MMIC"
+    private static final int FORMAT_VERSION = 2;
+    private static final int HEADER_SIZE = 34;
+
+    private IconCache() {}
+
+    /**
+     * Reads the attributes of a source PNG that decide whether a cached entry is still valid.
+     */
+    public static Source source(Path path) throws IOException {
+        return new Source(Files.size(path), Files.getLastModifiedTime(path).toMillis());
+    }
+
+    /**
+     * Reads a cached icon.
+     *
+     * @return A read-only buffer positioned at the first pixel, or {@code null} if there is no valid entry.
+     */
+    public static @Nullable CachedIcon read(
+            ModContainer container, String file, int size, boolean pixelPerfect, Source source) {
+        Path path = getEntryPath(container, file, size, pixelPerfect);
+        if (!Files.isRegularFile(path)) return null;
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (mapped.remaining() < HEADER_SIZE || mapped.getInt() != MAGIC || mapped.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+
+            int width = mapped.getInt();
+            int height = mapped.getInt();
+            Source storedSource = new Source(mapped.getLong(), mapped.getLong());
+            byte[] version = new byte[mapped.getShort() & 0xFFFF];
+            if (mapped.remaining() < version.length) return null;
+            mapped.get(version);
+
+            if (!storedSource.equals(source)
+                    || !getVersion(container).equals(new String(version, StandardCharsets.UTF_8))
+                    || mapped.remaining() != 4 * width * height) {
+                return null;
+            }
+
+            return new CachedIcon(mapped.slice(), width, height);
+        } catch (IOException e) {
+            LogUtil.err("Could not read cached icon " + path.getFileName() + ":", e);
+            return null;
+        }
+    }
+
+    /**
+     * Stores decoded pixels. Failures are logged and otherwise ignored, the icon just won't be cached.
+     */
+    public static void write(
+            ModContainer container,
+            String file,
+            int size,
+            boolean pixelPerfect,
+            Source source,
+            ByteBuffer pixels,
+            int width,
+            int height) {
+        Path path = getEntryPath(container, file, size, pixelPerfect);
+        byte[] version = getVersion(container).getBytes(StandardCharsets.UTF_8);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE + version.length);
+        header.putInt(MAGIC)
+                .putInt(FORMAT_VERSION)
+                .putInt(width)
+                .putInt(height)
+                .putLong(source.size())
+                .putLong(source.lastModified())
+                .putShort((short) version.length)
+                .put(version)
+                .flip();
+
+        try {
+            Files.createDirectories(ICON_DIR);
+
+            Path tmp = Files.createTempFile(ICON_DIR, path.getFileName().toString(), ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                ByteBuffer data = pixels.duplicate();
+                while (header.hasRemaining()) channel.write(header);
+                while (data.hasRemaining()) channel.write(data);
+            }
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LogUtil.err("Could not cache icon " + path.getFileName() + ":", e);
+        }
+    }
+
+    private static Path getEntryPath(ModContainer container, String file, int size, boolean pixelPerfect) {
+        String id = container.getMetadata().getId().replaceAll("[^a-zA-Z0-9_.-]", "_");
+        return ICON_DIR.resolve("%s_%08x_%d%s.bin".formatted(id, file.hashCode(), size, pixelPerfect ? "p" : ""));
+    }
+
+    private static String getVersion(ModContainer container) {
+        return container.getMetadata().getVersion().getFriendlyString();
+    }
+
+    public record CachedIcon(ByteBuffer pixels, int width, int height) {}
+
+    /**
+     * @param size         The size of the source PNG, in bytes.
+     * @param lastModified The modification time of the source PNG, in milliseconds since the epoch.
+     */
+    public record Source(long size, long lastModified) {}
+}
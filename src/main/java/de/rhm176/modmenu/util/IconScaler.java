@@ -0,0 +1,214 @@
+package de.rhm176.modmenu.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Rescales BGRA icons.
+ * <p>
+ * Pixels are read through little-endian {@link IntBuffer} views, so every pixel is a single ARGB int. All
+ * source coordinates and filter weights are precomputed into integer tables once per call, and the pixel
+ * arrays and tables are per-thread scratch space that is only ever grown, never reallocated per icon.
+ */
+@ApiStatus.Internal
+public final class IconScaler {
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    private IconScaler() {}
+
+    public enum Filter {
+        /**
+         * Picks the closest source pixel. Keeps pixel art sharp.
+         */
+        NEAREST,
+        /**
+         * Averages all source pixels covered by a target pixel. Best for downscaling.
+         */
+        BOX,
+        /**
+         * Interpolates between the four closest source pixels. Best for upscaling.
+         */
+        BILINEAR;
+
+        public static Filter choose(boolean pixelPerfect, int sourceSize, int targetSize) {
+            if (pixelPerfect) return NEAREST;
+
+            return sourceSize > targetSize ? BOX : BILINEAR;
+        }
+    }
+
+    /**
+     * Scales {@code source} into {@code target}. Both buffers are read and written from index 0, regardless of
+     * their positions, and their positions are left untouched.
+     */
+    public static void scale(
+            ByteBuffer source,
+            int sourceWidth,
+            int sourceHeight,
+            ByteBuffer target,
+            int targetWidth,
+            int targetHeight,
+            Filter filter) {
+        Scratch scratch = SCRATCH.get();
+        int[] src = scratch.source(sourceWidth * sourceHeight);
+        int[] dst = scratch.target(targetWidth * targetHeight);
+
+        IntBuffer sourcePixels = source.duplicate().clear().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        sourcePixels.get(src, 0, sourceWidth * sourceHeight);
+
+        switch (filter) {
+            case NEAREST -> nearest(scratch, src, sourceWidth, sourceHeight, dst, targetWidth, targetHeight);
+            case BOX -> box(scratch, src, sourceWidth, sourceHeight, dst, targetWidth, targetHeight);
+            case BILINEAR -> bilinear(scratch, src, sourceWidth, sourceHeight, dst, targetWidth, targetHeight);
+        }
+
+        IntBuffer targetPixels = target.duplicate().clear().order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        targetPixels.put(dst, 0, targetWidth * targetHeight);
+    }
+
+    private static void nearest(Scratch scratch, int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        int[] columns = scratch.table(0, dw);
+        int[] rows = scratch.table(1, dh);
+        for (int x = 0; x < dw; x++) columns[x] = x * sw / dw;
+        for (int y = 0; y < dh; y++) rows[y] = (y * sh / dh) * sw;
+
+        int i = 0;
+        for (int y = 0; y < dh; y++) {
+            int row = rows[y];
+            for (int x = 0; x < dw; x++) {
+                dst[i++] = src[row + columns[x]];
+            }
+        }
+    }
+
+    private static void box(Scratch scratch, int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        int[] xStart = scratch.table(0, dw);
+        int[] xEnd = scratch.table(1, dw);
+        int[] yStart = scratch.table(2, dh);
+        int[] yEnd = scratch.table(3, dh);
+        for (int x = 0; x < dw; x++) {
+            xStart[x] = x * sw / dw;
+            xEnd[x] = Math.max(xStart[x] + 1, (x + 1) * sw / dw);
+        }
+        for (int y = 0; y < dh; y++) {
+            yStart[y] = y * sh / dh;
+            yEnd[y] = Math.max(yStart[y] + 1, (y + 1) * sh / dh);
+        }
+
+        int i = 0;
+        for (int y = 0; y < dh; y++) {
+            for (int x = 0; x < dw; x++) {
+                // colour channels are weighted by alpha so fully transparent pixels don't bleed into the edges
+                long a = 0, r = 0, g = 0, b = 0;
+                for (int sy = yStart[y]; sy < yEnd[y]; sy++) {
+                    int row = sy * sw;
+                    for (int sx = xStart[x]; sx < xEnd[x]; sx++) {
+                        int pixel = src[row + sx];
+                        int alpha = pixel >>> 24;
+                        a += alpha;
+                        r += (long) ((pixel >> 16) & 0xFF) * alpha;
+                        g += (long) ((pixel >> 8) & 0xFF) * alpha;
+                        b += (long) (pixel & 0xFF) * alpha;
+                    }
+                }
+
+                int count = (yEnd[y] - yStart[y]) * (xEnd[x] - xStart[x]);
+                dst[i++] = pack(a, r, g, b, count);
+            }
+        }
+    }
+
+    private static void bilinear(Scratch scratch, int[] src, int sw, int sh, int[] dst, int dw, int dh) {
+        int[] x0 = scratch.table(0, dw);
+        int[] x1 = scratch.table(1, dw);
+        int[] wx = scratch.table(2, dw);
+        int[] y0 = scratch.table(3, dh);
+        int[] y1 = scratch.table(4, dh);
+        int[] wy = scratch.table(5, dh);
+        fillBilinearTable(x0, x1, wx, sw, dw, 1);
+        fillBilinearTable(y0, y1, wy, sh, dh, sw);
+
+        int i = 0;
+        for (int y = 0; y < dh; y++) {
+            int fy = wy[y];
+            for (int x = 0; x < dw; x++) {
+                int fx = wx[x];
+                int p00 = src[y0[y] + x0[x]];
+                int p10 = src[y0[y] + x1[x]];
+                int p01 = src[y1[y] + x0[x]];
+                int p11 = src[y1[y] + x1[x]];
+
+                // weights are 8 bit fixed point, so the four of them always sum up to 65536. colour channels are
+                // additionally weighted by alpha so fully transparent pixels don't bleed into the edges
+                long a00 = (long) (p00 >>> 24) * (256 - fx) * (256 - fy);
+                long a10 = (long) (p10 >>> 24) * fx * (256 - fy);
+                long a01 = (long) (p01 >>> 24) * (256 - fx) * fy;
+                long a11 = (long) (p11 >>> 24) * fx * fy;
+
+                long a = a00 + a10 + a01 + a11;
+                long r = channel(p00, p10, p01, p11, a00, a10, a01, a11, 16);
+                long g = channel(p00, p10, p01, p11, a00, a10, a01, a11, 8);
+                long b = channel(p00, p10, p01, p11, a00, a10, a01, a11, 0);
+
+                dst[i++] = pack(a, r, g, b, 65536);
+            }
+        }
+    }
+
+    /**
+     * Fills the lookup tables for one axis of a bilinear scale. Indices are pre-multiplied by {@code stride}.
+     */
+    private static void fillBilinearTable(
+            int[] low, int[] high, int[] weight, int sourceSize, int targetSize, int stride) {
+        for (int i = 0; i < targetSize; i++) {
+            // centre of the target pixel in source space, as 16.16 fixed point
+            long position = Math.max(0L, (((2L * i + 1) * sourceSize) << 16) / (2L * targetSize) - (1 << 15));
+            int index = (int) Math.min(position >> 16, sourceSize - 1);
+
+            low[i] = index * stride;
+            high[i] = Math.min(index + 1, sourceSize - 1) * stride;
+            weight[i] = (int) ((position >> 8) & 0xFF);
+        }
+    }
+
+    private static long channel(
+            int p00, int p10, int p01, int p11, long a00, long a10, long a01, long a11, int shift) {
+        return ((p00 >> shift) & 0xFF) * a00
+                + ((p10 >> shift) & 0xFF) * a10
+                + ((p01 >> shift) & 0xFF) * a01
+                + ((p11 >> shift) & 0xFF) * a11;
+    }
+
+    private static int pack(long alphaSum, long redSum, long greenSum, long blueSum, int weightSum) {
+        if (alphaSum == 0) return 0;
+
+        int a = (int) ((alphaSum + weightSum / 2) / weightSum);
+        int r = (int) (redSum / alphaSum);
+        int g = (int) (greenSum / alphaSum);
+        int b = (int) (blueSum / alphaSum);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+
+    private static final class Scratch {
+        private int[] source = new int[0];
+        private int[] target = new int[0];
+        private final int[][] tables = new int[6][0];
+
+        int[] source(int length) {
+            if (source.length < length) source = new int[length];
+            return source;
+        }
+
+        int[] target(int length) {
+            if (target.length < length) target = new int[length];
+            return target;
+        }
+
+        int[] table(int index, int length) {
+            if (tables[index].length < length) tables[index] = new int[length];
+            return tables[index];
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.ModMenu;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import net.fabricmc.loader.api.FabricLoader;
+import org.jetbrains.annotations.ApiStatus;
+import org.objectweb.asm.tree.ClassNode;
+import org.spongepowered.asm.mixin.FabricUtil;
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.extensibility.IMixinInfo;
+import org.spongepowered.asm.mixin.transformer.IMixinTransformer;
+import org.spongepowered.asm.mixin.transformer.ext.Extensions;
+import org.spongepowered.asm.mixin.transformer.ext.IExtension;
+import org.spongepowered.asm.mixin.transformer.ext.ITargetClassContext;
+
+/**
+ * Measures how long applying mixins to each target class takes and attributes that time to the mixin configs, and
+ * through them to the mods, that had mixins applied to the class. Enabled with {@code -Dmodmenu.profileMixins=true}.
+ * <p>
+ * The time spent on a target class is split evenly between the configs that touched it. Transformations of other
+ * classes that are triggered while a class is transformed are only counted for the class they belong to.
+ */
+@ApiStatus.Internal
+public final class MixinProfiler implements IExtension {
+    private static final String UNKNOWN_MOD = "(unknown)";
+
+    private static final Map<String, LongAdder> MOD_NANOS = new ConcurrentHashMap<>();
+    private static final Queue<Sample> SAMPLES = new ConcurrentLinkedQueue<>();
+    private static final AtomicBoolean DUMPED = new AtomicBoolean();
+    private static volatile boolean installed;
+
+    private final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+
+    private MixinProfiler() {}
+
+    public static boolean isEnabled() {
+        return Boolean.getBoolean(ModMenu.MOD_ID + ".profileMixins");
+    }
+
+    /**
+     * Registers the profiler with the active mixin transformer. Must be called before mixins are applied, i.e. from
+     * a mixin config plugin.
+     */
+    public static void install() {
+        // Mod Menu isn't initialized yet, so LogUtil can't be used here
+        Object transformer = MixinEnvironment.getCurrentEnvironment().getActiveTransformer();
+        if (transformer instanceof IMixinTransformer mixinTransformer
+                && mixinTransformer.getExtensions() instanceof Extensions extensions) {
+            extensions.add(new MixinProfiler());
+            installed = true;
+        } else {
+            System.err.printf("[%s] Could not install the mixin profiler.%n", ModMenu.MOD_ID);
+        }
+    }
+
+    public static boolean isInstalled() {
+        return installed;
+    }
+
+    /**
+     * @return The time spent applying mixins of the mod with the given id, in nanoseconds.
+     */
+    public static long getModNanos(String modId) {
+        LongAdder nanos = MOD_NANOS.get(modId);
+        return nanos != null ? nanos.sum() : 0;
+    }
+
+    /**
+     * Writes all samples recorded so far to {@code modmenu-mixin-profile.csv} in the game directory. Only the
+     * first call does anything.
+     */
+    public static void dumpOnce() {
+        if (!installed || !DUMPED.compareAndSet(false, true)) return;
+
+        Path file = FabricLoader.getInstance().getGameDir().resolve(ModMenu.MOD_ID + "-mixin-profile.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("mod,config,target,nanos");
+            writer.newLine();
+            for (Sample sample : SAMPLES) {
+                writer.write(sample.modId() + "," + sample.config() + "," + sample.target() + "," + sample.nanos());
+                writer.newLine();
+            }
+
+            LogUtil.log("Wrote %d mixin timings to %s.".formatted(SAMPLES.size(), file));
+        } catch (IOException e) {
+            LogUtil.err("Could not write the mixin profile:", e);
+        }
+    }
+
+    @Override
+    public boolean checkActive(MixinEnvironment environment) {
+        return true;
+    }
+
+    @Override
+    public void preApply(ITargetClassContext context) {
+        frames.get().push(new Frame(System.nanoTime()));
+    }
+
+    @Override
+    public void postApply(ITargetClassContext context) {
+        Deque<Frame> stack = frames.get();
+        Frame frame = stack.poll();
+        if (frame == null) return;
+
+        long elapsed = System.nanoTime() - frame.start;
+        Frame parent = stack.peek();
+        if (parent != null) {
+            parent.nestedNanos += elapsed;
+        }
+
+        Map<IMixinConfig, Boolean> configs = new IdentityHashMap<>();
+        for (IMixinInfo mixin : context.getClassInfo().getAppliedMixins()) {
+            configs.put(mixin.getConfig(), Boolean.TRUE);
+        }
+        if (configs.isEmpty()) return;
+
+        String target = context.getClassInfo().getClassName();
+        long share = (elapsed - frame.nestedNanos) / configs.size();
+        for (IMixinConfig config : configs.keySet()) {
+            String modId = config.hasDecoration(FabricUtil.KEY_MOD_ID)
+                    ? config.<String>getDecoration(FabricUtil.KEY_MOD_ID)
+                    : UNKNOWN_MOD;
+
+            MOD_NANOS.computeIfAbsent(modId, k -> new LongAdder()).add(share);
+            SAMPLES.add(new Sample(modId, config.getName(), target, share));
+        }
+    }
+
+    @Override
+    public void export(MixinEnvironment env, String name, boolean force, ClassNode classNode) {}
+
+    private static final class Frame {
+        private final long start;
+        private long nestedNanos;
+
+        private Frame(long start) {
+            this.start = start;
+        }
+    }
+
+    private record Sample(String modId, String config, String target, long nanos) {}
+}
@@ -0,0 +1,92 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModMenu;
+import de.rhm176.modmenu.config.SortingOrder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The number of classes and the total size of the files a mod ships.
+ * <p>
+ * Walking a mod's files isn't free, so mods are measured on a background thread, a mod at a time as the info panel
+ * shows it or the list is sorted by {@link SortingOrder#CLASS_COUNT}, and the results are cached. Until a mod has
+ * been measured, {@link #get} returns {@code null}. Once every queued mod is done, the cached sort orders are
+ * dropped, so the next sort places the mods that weren't measured before.
+ *
+ * @param classCount   The number of {@code .class} files in the mod's root paths.
+ * @param contentBytes The uncompressed size of all files in the mod's root paths.
+ */
+@ApiStatus.Internal
+public record ModContentSize(int classCount, long contentBytes) {
+    /**
+     * Most classes first, then largest.
+     */
+    public static final Comparator<ModContentSize> LARGEST_FIRST = Comparator.comparingInt(
+                    ModContentSize::classCount)
+            .thenComparingLong(ModContentSize::contentBytes)
+            .reversed();
+
+    private static final Map<Mod, ModContentSize> CACHE = new ConcurrentHashMap<>();
+    private static final Set<Mod> QUEUED = ConcurrentHashMap.newKeySet();
+    private static final AtomicInteger PENDING = new AtomicInteger();
+    private static final ExecutorService MEASURER = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable);
+        thread.setName(ModMenu.MOD_MENU_CONTAINER.getMetadata().getName() + "/Content Size");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    /**
+     * Gets the size of a mod, queueing it to be measured if that hasn't happened yet.
+     *
+     * @return The size, or {@code null} if the mod hasn't been measured yet.
+     */
+    public static @Nullable ModContentSize get(Mod mod) {
+        ModContentSize size = CACHE.get(mod);
+        if (size == null && QUEUED.add(mod)) {
+            PENDING.incrementAndGet();
+            MEASURER.execute(() -> {
+                CACHE.put(mod, measure(mod));
+                if (PENDING.decrementAndGet() == 0) {
+                    // orders sorted in the meantime placed the mods that weren't measured yet last
+                    SortingOrder.invalidateCache();
+                }
+            });
+        }
+
+        return size;
+    }
+
+    private static ModContentSize measure(Mod mod) {
+        // the root path of the builtin java mod is the whole runtime
+        if ("java".equals(mod.getId())) return new ModContentSize(0, 0);
+
+        int classCount = 0;
+        long contentBytes = 0;
+        for (Path root : mod.getContainer().getRootPaths()) {
+            try (Stream<Path> files = Files.walk(root)) {
+                for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile)::iterator) {
+                    contentBytes += Files.size(file);
+                    if (file.getFileName().toString().endsWith(".class")) classCount++;
+                }
+            } catch (IOException | RuntimeException e) {
+                LogUtil.err("Could not measure the files of mod: " + mod.getId(), e);
+            }
+        }
+
+        return new ModContentSize(classCount, contentBytes);
+    }
+}
@@ -0,0 +1,146 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModBadgeType;
+import de.rhm176.modmenu.ModMenu;
+import de.rhm176.modmenu.ModRegistry;
+import java.util.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * Uses the {@link ModRegistry} index of every mod as its slot and keeps one bitset per {@link ModBadgeType} and per
+ * {@link Capability}, so the list can be filtered with a few bitset operations instead of querying every mod.
+ * <p>
+ * The {@link ModBadgeType#UPDATE} bits are updated by {@link #onUpdateInfoChanged(Mod)} as update checks finish,
+ * which happens on the update checker threads, so access to the bitsets is synchronized.
+ */
+@ApiStatus.Internal
+public final class ModFacetIndex {
+    private static ModFacetIndex instance;
+
+    private final ModRegistry registry;
+    private final Map<ModBadgeType, BitSet> badges = new EnumMap<>(ModBadgeType.class);
+    private final Map<Capability, BitSet> capabilities = new EnumMap<>(Capability.class);
+    private volatile int modificationCount;
+
+    private ModFacetIndex(ModRegistry registry) {
+        this.registry = registry;
+
+        for (ModBadgeType badgeType : ModBadgeType.values()) {
+            badges.put(badgeType, new BitSet(registry.size()));
+        }
+        for (Capability capability : Capability.values()) {
+            capabilities.put(capability, new BitSet(registry.size()));
+        }
+
+        for (int slot = 0; slot < registry.size(); slot++) {
+            Mod mod = registry.getMod(slot);
+
+            for (ModBadgeType badgeType : mod.getBadges()) {
+                badges.get(badgeType).set(slot);
+            }
+            // based on whether the mods provide an API entrypoint at all, creating it is left to the config screen
+            // and the update checks
+            if (mod.mayHaveConfigScreen()) {
+                capabilities.get(Capability.CONFIG_SCREEN).set(slot);
+            }
+            if (mod.mayHaveUpdateChecker()) {
+                capabilities.get(Capability.UPDATE_CHECKER).set(slot);
+            }
+            if (registry.getChildCount(slot) > 0) {
+                capabilities.get(Capability.CHILDREN).set(slot);
+            }
+        }
+    }
+
+    /**
+     * Gets the index over {@link ModMenu#REGISTRY}, building it on first use.
+     */
+    public static synchronized ModFacetIndex get() {
+        if (instance == null) {
+            instance = new ModFacetIndex(ModMenu.REGISTRY);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Updates the {@link ModBadgeType#UPDATE} bit of a mod. Does nothing if the index hasn't been built yet, it
+     * will pick up the current state once it is.
+     */
+    public static synchronized void onUpdateInfoChanged(Mod mod) {
+        if (instance == null) return;
+
+        int slot = mod.getIndex();
+        if (slot >= 0 && slot < instance.size()) {
+            instance.badges.get(ModBadgeType.UPDATE).set(slot, mod.getUpdateInfo() != null);
+            instance.modificationCount++;
+        }
+    }
+
+    /**
+     * @return A counter that changes whenever a bitset changes, so filtered views know when to filter again.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * @return The number of slots, i.e. the size of every bitset returned by this index.
+     */
+    public int size() {
+        return registry.size();
+    }
+
+    /**
+     * @return The slot of the mod, or -1 if it isn't indexed.
+     */
+    public int getSlot(Mod mod) {
+        return mod.getIndex();
+    }
+
+    public Mod getMod(int slot) {
+        return registry.getMod(slot);
+    }
+
+    /**
+     * @return The slots of all mods passing the filter.
+     */
+    public BitSet filter(Filter filter) {
+        synchronized (ModFacetIndex.class) {
+            BitSet result = new BitSet(size());
+            result.set(0, size());
+
+            for (ModBadgeType badgeType : filter.requiredBadges()) {
+                result.and(badges.get(badgeType));
+            }
+            for (ModBadgeType badgeType : filter.hiddenBadges()) {
+                result.andNot(badges.get(badgeType));
+            }
+            for (Capability capability : filter.requiredCapabilities()) {
+                result.and(capabilities.get(capability));
+            }
+
+            return result;
+        }
+    }
+
+    public enum Capability {
+        CONFIG_SCREEN,
+        UPDATE_CHECKER,
+        CHILDREN
+    }
+
+    /**
+     * A combination of facets. Mods pass if they have all required badges and capabilities and none of the hidden
+     * badges.
+     */
+    public record Filter(
+            Set<ModBadgeType> requiredBadges, Set<ModBadgeType> hiddenBadges, Set<Capability> requiredCapabilities) {
+        public static final Filter NONE = new Filter(Set.of(), Set.of(), Set.of());
+
+        public boolean isEmpty() {
+            return requiredBadges.isEmpty() && hiddenBadges.isEmpty() && requiredCapabilities.isEmpty();
+        }
+    }
+}
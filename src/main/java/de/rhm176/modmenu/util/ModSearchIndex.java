@@ -0,0 +1,145 @@
+package de.rhm176.modmenu.util;
+
+import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModMenu;
+import java.util.*;
+import org.jetbrains.annotations.ApiStatus;
+
+/**
+ * A trigram index over the searchable text of every mod: id, name, description, authors and contributors.
+ * <p>
+ * The text is lowercased and read from the {@link Mod} getters when the index is built, and read again after
+ * {@link #invalidate()}, as translated names may have changed. A query of three or
+ * more characters is answered by intersecting the posting lists of its trigrams and then checking the few
+ * remaining candidates with a substring test. If a query only extends the previous one (e.g. while typing), the
+ * previous matches are narrowed down instead of searching all mods again.
+ * <p>
+ * Mods are identified by their {@link ModFacetIndex} slot, so search results can be combined with facet filters.
+ * Searching keeps state and must only be used from the render thread.
+ */
+@ApiStatus.Internal
+public final class ModSearchIndex {
+    private static ModSearchIndex instance;
+
+    private final int size;
+    private final String[] haystacks;
+    private final Map<Long, int[]> postings = new HashMap<>();
+
+    private String lastQuery = "";
+    private BitSet lastMatches;
+
+    private ModSearchIndex(ModFacetIndex facets) {
+        this.size = facets.size();
+        this.haystacks = new String[size];
+
+        Map<Long, List<Integer>> lists = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            Mod mod = facets.getMod(id);
+
+            StringJoiner text = new StringJoiner("\n");
+            text.add(mod.getId()).add(mod.getName()).add(mod.getDescription());
+            mod.getAuthors().forEach(text::add);
+            mod.getContributors().keySet().forEach(text::add);
+            haystacks[id] = text.toString().toLowerCase(Locale.ROOT);
+
+            Set<Long> seen = new HashSet<>();
+            String haystack = haystacks[id];
+            for (int i = 0; i + 3 <= haystack.length(); i++) {
+                long trigram = trigram(haystack, i);
+                if (seen.add(trigram)) {
+                    lists.computeIfAbsent(trigram, k -> new ArrayList<>()).add(id);
+                }
+            }
+        }
+
+        // ids were added in increasing order, so every posting list is already sorted
+        lists.forEach((trigram, list) ->
+                postings.put(trigram, list.stream().mapToInt(Integer::intValue).toArray()));
+        this.lastMatches = all();
+    }
+
+    /**
+     * Gets the index over {@link ModMenu#REGISTRY}, building it on first use.
+     */
+    public static ModSearchIndex get() {
+        if (instance == null) {
+            instance = new ModSearchIndex(ModFacetIndex.get());
+        }
+
+        return instance;
+    }
+
+    /**
+     * Drops the index, so it is built again from the current names and descriptions on its next use.
+     */
+    public static void invalidate() {
+        instance = null;
+    }
+
+    /**
+     * @return The slots (see {@link ModFacetIndex#getSlot(Mod)}) of all mods whose text contains the query, ignoring
+     * case.
+     */
+    public BitSet search(String query) {
+        query = query.toLowerCase(Locale.ROOT).trim();
+        if (query.equals(lastQuery)) return (BitSet) lastMatches.clone();
+
+        boolean narrowing = !lastQuery.isEmpty() && query.contains(lastQuery);
+
+        BitSet candidates;
+        if (query.isEmpty()) {
+            candidates = all();
+        } else if (narrowing && (lastQuery.length() >= 3 || query.length() < 3)) {
+            // every mod matching the longer query also matched the previous one
+            candidates = (BitSet) lastMatches.clone();
+        } else if (query.length() >= 3) {
+            candidates = lookup(query);
+        } else {
+            candidates = all();
+        }
+
+        if (!query.isEmpty()) {
+            for (int id = candidates.nextSetBit(0); id >= 0; id = candidates.nextSetBit(id + 1)) {
+                if (!haystacks[id].contains(query)) candidates.clear(id);
+            }
+        }
+
+        lastQuery = query;
+        lastMatches = candidates;
+        return (BitSet) candidates.clone();
+    }
+
+    /**
+     * Intersects the posting lists of all trigrams of the query, starting with the shortest one.
+     */
+    private BitSet lookup(String query) {
+        List<int[]> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int[] list = postings.get(trigram(query, i));
+            if (list == null) return new BitSet();
+
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(list -> list.length));
+
+        BitSet result = new BitSet(size);
+        for (int id : lists.get(0)) result.set(id);
+        for (int i = 1; i < lists.size() && !result.isEmpty(); i++) {
+            BitSet next = new BitSet(size);
+            for (int id : lists.get(i)) next.set(id);
+            result.and(next);
+        }
+
+        return result;
+    }
+
+    private BitSet all() {
+        BitSet all = new BitSet(size);
+        all.set(0, size);
+        return all;
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+}
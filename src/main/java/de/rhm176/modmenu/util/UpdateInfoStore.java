@@ -0,0 +1,131 @@
+package de.rhm176.modmenu.util;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import de.rhm176.modmenu.Mod;
+import de.rhm176.modmenu.ModMenuUtil;
+import de.rhm176.modmenu.api.update.UpdateChannel;
+import de.rhm176.modmenu.api.update.UpdateInfo;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Remembers the updates found by the last update check, so they can be shown while the next check still runs.
+ * <p>
+ * Entries are keyed by mod id and only used while the installed version of the mod is the one they were found
+ * for. Updating a mod therefore drops its entry.
+ */
+@ApiStatus.Internal
+public final class UpdateInfoStore {
+    private static final Path STORE_FILE = ModMenuUtil.getCacheDir().resolve("updates.json");
+    private static final Gson GSON = new Gson();
+
+    private static Map<String, StoredUpdate> updates;
+
+    private UpdateInfoStore() {}
+
+    /**
+     * @return The update found for the installed version of {@code mod} by an earlier check, or {@code null}.
+     */
+    public static synchronized @Nullable UpdateInfo get(Mod mod) {
+        StoredUpdate stored = getUpdates().get(mod.getId());
+        if (stored == null) return null;
+
+        if (!stored.installedVersion.equals(mod.getVersion())) {
+            getUpdates().remove(mod.getId());
+            return null;
+        }
+
+        try {
+            return new UpdateInfo(URI.create(stored.url), stored.version, stored.channel);
+        } catch (RuntimeException e) {
+            getUpdates().remove(mod.getId());
+            return null;
+        }
+    }
+
+    /**
+     * Records the result of an update check, {@code null} meaning there is no update.
+     */
+    public static synchronized void put(Mod mod, @Nullable UpdateInfo updateInfo) {
+        if (updateInfo == null) {
+            getUpdates().remove(mod.getId());
+        } else {
+            getUpdates()
+                    .put(
+                            mod.getId(),
+                            new StoredUpdate(
+                                    mod.getVersion(),
+                                    updateInfo.version(),
+                                    updateInfo.updateUrl().toString(),
+                                    updateInfo.updateChannel()));
+        }
+    }
+
+    /**
+     * Forgets the results of all mods not in {@code modIds}, e.g. because they were uninstalled or no longer have
+     * an update checker.
+     */
+    public static synchronized void retainAll(Collection<String> modIds) {
+        getUpdates().keySet().retainAll(modIds);
+    }
+
+    public static synchronized void save() {
+        try {
+            Files.createDirectories(STORE_FILE.getParent());
+
+            Path tmp = Files.createTempFile(STORE_FILE.getParent(), "updates", ".tmp");
+            try (var writer = Files.newBufferedWriter(tmp)) {
+                GSON.toJson(getUpdates(), writer);
+            }
+            Files.move(tmp, STORE_FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (Exception e) {
+            LogUtil.err("Could not save the update check results:", e);
+        }
+    }
+
+    private static Map<String, StoredUpdate> getUpdates() {
+        if (updates == null) {
+            updates = new HashMap<>();
+            if (Files.exists(STORE_FILE)) {
+                try (var reader = Files.newBufferedReader(STORE_FILE)) {
+                    Map<String, StoredUpdate> loaded =
+                            GSON.fromJson(reader, new TypeToken<Map<String, StoredUpdate>>() {}.getType());
+                    if (loaded != null) {
+                        loaded.values().removeIf(stored -> !stored.isComplete());
+                        updates.putAll(loaded);
+                    }
+                } catch (Exception e) {
+                    LogUtil.err("Could not load the update check results, they will be checked again.", e);
+                }
+            }
+        }
+
+        return updates;
+    }
+
+    private static final class StoredUpdate {
+        private String installedVersion;
+        private String version;
+        private String url;
+        private UpdateChannel channel;
+
+        private StoredUpdate(String installedVersion, String version, String url, UpdateChannel channel) {
+            this.installedVersion = installedVersion;
+            this.version = version;
+            this.url = url;
+            this.channel = channel;
+        }
+
+        private boolean isComplete() {
+            return installedVersion != null && version != null && url != null && channel != null;
+        }
+    }
+}